@@ -3,27 +3,116 @@ package com.eddien03.simplecalendar;
 /*
  * Structure:
  * =========
- * Key = Dates
- * Value = TreeSet of Events of the Day
+ * Key = Dates (UTC)
+ * Value = TreeSet of Events of the Day (UTC times)
  * Events should NOT overlap
+ *
+ * Everything inside is stored in UTC, so splitting and slot math never see a DST change.
+ * Time zones only show up at the edges: a day in any ZoneId is turned into a UTC range
+ * and answered from the one or two UTC days it covers. The LocalDate/LocalDateTime
+ * methods use the manager's zone (the system default unless told otherwise)
+ *
+ * titleIndex points from title words to compact postings so a title search never walks every day.
+ * With a store it is built over every month (read in parallel) on the first search, and from
+ * then on addEvent keeps it complete, so months coming and going from memory don't touch it.
+ * Postings don't hold on to Events, so evicting a month still frees its events
+ *
+ * rollups (off until enableRollups) keep a running total per UTC day for CalendarAnalytics
+ *
+ * Once openChangeFeed is called every committed addEvent also goes out on a ChangeFeed,
+ * numbered with the version it produced
+ *
+ * When backed by a PartitionedEventStore only the months that have been
+ * touched are kept in eventsEachDay, and the least recently used ones get
+ * written back and dropped once the resident event budget is exceeded
+ *
+ * dirtyDays holds every day addEvent has changed since the last save,
+ * so saving only rewrites the months those days live in
+ *
+ * Every public method is synchronized. Saving copies the dirty months while
+ * holding the lock and does the file writing after letting go of it, so a
+ * CheckpointScheduler can write in the background while events are still added
  * 
  */
 
 
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.time.*;
-import java.time.format.DateTimeFormatter;
 import java.io.*;
+import java.nio.file.*;
 
 public class AppointmentManager {
 
     //Instance Variable & Constructor
 
-    private final Map<LocalDate, NavigableSet<Event>> eventsEachDay;
+    private final NavigableMap<LocalDate, NavigableSet<Event>> eventsEachDay;
+
+    //The zone the LocalDate/LocalDateTime methods are read in
+    private final ZoneId zone;
+
+    //Lazy loading state, store is null when the manager is purely in memory
+    private final PartitionedEventStore store;
+    private final int maxResidentEvents;
+    private final LinkedHashMap<YearMonth, Integer> residentMonths;
+    private int residentEvents;
+
+    //Days changed since the last saveToStore
+    private final NavigableSet<LocalDate> dirtyDays;
+
+    //Months copied into a checkpoint that hasn't reached the disk yet, they must stay in memory
+    private final Map<YearMonth, Integer> pendingMonths;
+
+    //Goes up by one for every addEvent, also used to order writes of the same month
+    private volatile long version;
+
+    //Title search, while loadFromCSV runs new events wait in bulkPostings and get indexed in parallel at the end
+    //titleIndexComplete is false until the store has been indexed, until then there is no point indexing anything
+    private final TitleIndex titleIndex;
+    private List<TitleIndex.Posting> bulkPostings;
+    private boolean titleIndexComplete;
+
+    //Per day totals for analytics, null until enableRollups is called
+    private NavigableMap<LocalDate, DailyRollup> rollups;
+
+    //Where committed changes are published, null until openChangeFeed is called
+    private ChangeFeed changeFeed;
 
     public AppointmentManager() {
-        this.eventsEachDay = new HashMap<>();
+        this(null, Integer.MAX_VALUE, ZoneId.systemDefault());
+    }
+
+    public AppointmentManager(ZoneId zone) {
+        this(null, Integer.MAX_VALUE, zone);
+    }
+
+    public AppointmentManager(PartitionedEventStore store, int maxResidentEvents) {
+        this(store, maxResidentEvents, ZoneId.systemDefault());
+    }
+
+    public AppointmentManager(PartitionedEventStore store, int maxResidentEvents, ZoneId zone) {
+        if (maxResidentEvents <= 0) {
+            throw new IllegalArgumentException("The resident event budget must be positive");
+        }
+
+        this.eventsEachDay = new TreeMap<>();
+        this.zone = zone;
+        this.store = store;
+        this.maxResidentEvents = maxResidentEvents;
+        //Access order so the first entry is always the coldest month
+        this.residentMonths = new LinkedHashMap<>(16, 0.75f, true);
+        this.residentEvents = 0;
+        this.dirtyDays = new TreeSet<>();
+        this.pendingMonths = new HashMap<>();
+        this.version = 0;
+        this.titleIndex = new TitleIndex();
+        this.bulkPostings = null;
+        //Without a store every event goes through addEvent, so the empty index already covers them all
+        this.titleIndexComplete = store == null;
+        this.rollups = null;
+        this.changeFeed = null;
     }
 
     //Core Requirements
@@ -33,122 +122,408 @@ public class AppointmentManager {
      * 1) Listing all events for the day -> Since today is also a day
      * 3) List all events for any specified day
      */
-    public NavigableSet<Event> listADaysEvents(LocalDate aDay) {
-        //Using default of empty list to avoid null
-        return new TreeSet<>(eventsEachDay.getOrDefault(aDay, new TreeSet<>()));
+    public synchronized NavigableSet<Event> listADaysEvents(LocalDate aDay) {
+
+        //When the manager's zone is UTC the stored day already is the answer
+        if (isUtc(zone)) {
+            //Using default of empty list to avoid null
+            return new TreeSet<>(dayEvents(aDay));
+        }
+
+        return toLocalEvents(listADaysEvents(aDay, zone), aDay);
     }
 
     /*
      * 2) List all remaining events for the day
      */
-    public NavigableSet<Event> listTodaysRemainingEvents() {
-        LocalDate today = LocalDate.now();
-        LocalTime now = LocalTime.now();
+    public synchronized NavigableSet<Event> listTodaysRemainingEvents() {
+        LocalDate today = LocalDate.now(zone);
+        ZonedDateTime now = ZonedDateTime.now(zone);
 
-        //Have to convert to a stream in order to use the filter where endTime is after the current time
-        //Just like listADaysEvents also have a default to empty list
-        return eventsEachDay.getOrDefault(today, new TreeSet<>())
+        //Have to convert to a stream in order to use the filter where the end is after the current time
+        List<ZonedEvent> remaining = listADaysEvents(today, zone)
                             .stream()
-                            .filter(e -> e.getEndTime().isAfter(now))
-                            .collect(Collectors.toCollection(TreeSet::new));
+                            .filter(e -> e.getEnd().isAfter(now))
+                            .collect(Collectors.toList());
+
+        return toLocalEvents(remaining, today);
     }
 
     /*
-     * 4) Provide the next available slot of a specified size for today OR the specified day.
+     * The events of a day as seen from any time zone.
+     * The day becomes a UTC range and only the UTC days it touches are looked at.
+     */
+    public synchronized List<ZonedEvent> listADaysEvents(LocalDate aDay, ZoneId viewZone) {
+        return listEventsBetween(aDay.atStartOfDay(viewZone).toInstant(),
+                                 aDay.plusDays(1).atStartOfDay(viewZone).toInstant(),
+                                 viewZone);
+    }
+
+    /*
+     * Every event between two instants, cut down to the range.
+     * Pieces of one event that were split at UTC midnight are joined back together.
      */
-    public Optional<LocalTime[]> findNextAvailableSlot(LocalDate aDay, Duration howLong) {
+    public synchronized List<ZonedEvent> listEventsBetween(Instant from, Instant to, ZoneId viewZone) {
+
+        List<ZonedEvent> result = new ArrayList<>();
+
+        //The event currently being built, in UTC
+        JoinedEvent current = null;
+
+        LocalDate lastDay = utcDate(to.minusNanos(1));
+
+        for (LocalDate day = utcDate(from); !day.isAfter(lastDay); day = day.plusDays(1)) {
+            for (Event event : dayEvents(day)) {
 
-        //Variables for the function
-        NavigableSet<Event> eventsToCheck;
-        boolean isToday = false;
-        //Predefine If there are no events & not today, just suggest midnight + duration (as this is the first possible time)
-        LocalTime[] result = {LocalTime.MIDNIGHT, LocalTime.MIDNIGHT.plus(howLong)};
+                Instant eventStart = startInstant(day, event);
+                Instant eventEnd = endInstant(day, event);
+
+                //Outside the range, an empty event right on the start still counts
+                if (!eventStart.isBefore(to) || (eventEnd.isBefore(from) || (eventEnd.equals(from) && eventStart.isBefore(from)))) {
+                    continue;
+                }
+
+                if (current != null && current.extend(day, event)) {
+                    continue;
+                }
+
+                if (current != null) {
+                    result.add(clip(current.title, current.start, current.end, from, to, viewZone));
+                }
 
-        //Cut the events to be only what is currently possible
-        if (aDay.isEqual(LocalDate.now())) {
-            eventsToCheck = listTodaysRemainingEvents();
-            isToday = true;
-        } else {
-            eventsToCheck = listADaysEvents(aDay);
+                current = new JoinedEvent(day, event);
+            }
+        }
+
+        if (current != null) {
+            result.add(clip(current.title, current.start, current.end, from, to, viewZone));
         }
 
-        //First sanity check if the day to check is empty if so we can add it whenever
-        if (eventsToCheck.isEmpty()) {
-            //This could be an &&, but I also wanted to make it so that we avoid the main algo if a future day is empty
-            if (isToday) {
-                result[0] = LocalTime.now();
-                result[1] = LocalTime.now().plus(howLong);
+        return result;
+    }
+
+    /*
+     * Find events by title in the manager's zone, see below
+     */
+    public synchronized List<ZonedEvent> searchByTitle(String text, LocalDate from, LocalDate to, int offset, int limit) {
+        return searchByTitle(text, from, to, zone, offset, limit);
+    }
+
+    /*
+     * Find events whose title has a word starting with every word of text ("dent" finds "Dentist"),
+     * between two days of viewZone (both included). Results are in time order and paged with offset/limit.
+     * Like listEventsBetween, a match sticking out of the range is cut down to it.
+     * Only the matching events are looked at, never the whole calendar.
+     */
+    public synchronized List<ZonedEvent> searchByTitle(String text, LocalDate from, LocalDate to, ZoneId viewZone, int offset, int limit) {
+
+        //Error handling
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Offset can't be negative and limit must be positive");
+        }
+
+        //Months that were never loaded have to be in the index before it can answer
+        if (!titleIndexComplete) {
+            rebuildTitleIndex();
+        }
+
+        Instant fromInstant = from.atStartOfDay(viewZone).toInstant();
+        Instant toInstant = to.plusDays(1).atStartOfDay(viewZone).toInstant();
+
+        List<ZonedEvent> page = new ArrayList<>();
+        int seen = 0;
+
+        //The event currently being built, pieces split at UTC midnight get joined like in listEventsBetween
+        JoinedEvent current = null;
+
+        for (TitleIndex.Posting posting : titleIndex.search(text, utcDate(fromInstant), utcDate(toInstant.minusNanos(1)))) {
+
+            LocalDate day = posting.getDay();
+            Event piece = posting.getEvent();
+            Instant postingStart = startInstant(day, piece);
+            Instant postingEnd = endInstant(day, piece);
+
+            //The UTC days can stick out past the range on either side
+            if (!postingStart.isBefore(toInstant) || (!postingEnd.isAfter(fromInstant) && postingStart.isBefore(fromInstant))) {
+                continue;
             }
 
-            //Check in both cases if the duration is too long, if so return nothing
-            if (result[1].isAfter(LocalTime.MAX)) {
-                return Optional.empty();
+            if (current != null && current.extend(day, piece)) {
+                continue;
             }
-            return Optional.of(result);
+
+            if (current != null && seen++ >= offset) {
+                page.add(clip(current.title, current.start, current.end, fromInstant, toInstant, viewZone));
+                //This posting wasn't a piece of it, so the page really is full
+                if (page.size() == limit) return page;
+            }
+
+            current = new JoinedEvent(day, piece);
         }
 
+        if (current != null && seen >= offset) {
+            page.add(clip(current.title, current.start, current.end, fromInstant, toInstant, viewZone));
+        }
+
+        return page;
+    }
+
+    /*
+     * Throw the title index away and build it again over every event, including
+     * months of the store that were never loaded. The months are read in parallel,
+     * and each month's events can be dropped as soon as its postings are in.
+     * searchByTitle does this by itself the first time, calling it again is only needed
+     * if the store's files were changed behind the manager's back.
+     */
+    public synchronized void rebuildTitleIndex() {
+
+        titleIndex.clear();
+
+        List<TitleIndex.Posting> resident = new ArrayList<>();
+        for (var entry : eventsEachDay.entrySet()) {
+            for (Event event : entry.getValue()) {
+                resident.add(new TitleIndex.Posting(entry.getKey(), event));
+            }
+        }
+        titleIndex.addAll(resident);
+
+        if (store != null) {
+            //Resident months are already covered above and may be newer than their file
+            store.listPartitions()
+                 .parallelStream()
+                 .filter(month -> !residentMonths.containsKey(month))
+                 .map(this::readPartitionPostings)
+                 .forEach(titleIndex::addAll);
+        }
+
+        titleIndexComplete = true;
+    }
+
+    //Analytics Support
+
+    /*
+     * Start keeping per day totals so CalendarAnalytics doesn't have to read events at all.
+     * Built once over everything (store months in parallel) and then kept up to date by addEvent.
+     * Events are never removed, so the totals stay right even after a month is evicted.
+     */
+    public synchronized void enableRollups() {
+
+        if (rollups != null) return;
+
+        NavigableMap<LocalDate, DailyRollup> built = new TreeMap<>();
+
+        for (var entry : eventsEachDay.entrySet()) {
+            built.put(entry.getKey(), rollupOf(entry.getValue()));
+        }
+
+        if (store != null) {
+            store.listPartitions()
+                 .parallelStream()
+                 .filter(month -> !residentMonths.containsKey(month))
+                 .map(this::readPartitionRollups)
+                 .forEachOrdered(built::putAll);
+        }
+
+        rollups = built;
+    }
+
+    /*
+     * A copy of the rollups between two days (both included), or null when they are turned off
+     */
+    synchronized NavigableMap<LocalDate, DailyRollup> copyRollups(LocalDate from, LocalDate to) {
+
+        if (rollups == null) return null;
+
+        NavigableMap<LocalDate, DailyRollup> copy = new TreeMap<>();
+        for (var entry : rollups.subMap(from, true, to, true).entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    /*
+     * A copy of one month for analytics. Only a resident month needs the lock,
+     * anything else is read straight from the store so many months can be read at once.
+     * Being a read for reporting it doesn't make the month resident or touch the LRU order.
+     */
+    Map<LocalDate, NavigableSet<Event>> readMonth(YearMonth month) {
+
+        synchronized (this) {
+            if (store == null || residentMonths.containsKey(month)) {
+                return monthOfDays(month, true);
+            }
+        }
+
+        try {
+            return store.readPartition(month);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read events for " + month, e);
+        }
+    }
+
+    /*
+     * 4) Provide the next available slot of a specified size for today OR the specified day.
+     */
+    public synchronized Optional<LocalTime[]> findNextAvailableSlot(LocalDate aDay, Duration howLong) {
+        return findNextAvailableSlot(aDay, howLong, SlotConstraints.DEFAULT);
+    }
+
+    /*
+     * Same as above, but the slot also has to fit the working hours, buffers and
+     * start granularity of the given constraints
+     */
+    public synchronized Optional<LocalTime[]> findNextAvailableSlot(LocalDate aDay, Duration howLong, SlotConstraints constraints) {
+
+        Optional<ZonedDateTime[]> slot = findNextAvailableSlot(aDay, zone, howLong, constraints);
+        if (slot.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new LocalTime[]{slot.get()[0].toLocalTime(), slot.get()[1].toLocalTime()});
+    }
+
+    /*
+     * The slot search for a day in any time zone. Working hours and granularity are
+     * read in that zone, so they still line up on the days the clocks change.
+     */
+    public synchronized Optional<ZonedDateTime[]> findNextAvailableSlot(LocalDate aDay, ZoneId viewZone, Duration howLong, SlotConstraints constraints) {
+
+        long length = howLong.toNanos();
+
+        //Closed day
+        if (constraints.windowStart(aDay) < 0) {
+            return Optional.empty();
+        }
+
+        //Everything is done in nanos since the start of the day in viewZone, so nothing can wrap around midnight
+        Instant origin = aDay.atStartOfDay(viewZone).toInstant();
+        long windowStart = nanosSince(origin, aDay.atTime(LocalTime.ofNanoOfDay(constraints.windowStart(aDay))).atZone(viewZone).toInstant());
+        long windowEnd = nanosSince(origin, aDay.atTime(LocalTime.ofNanoOfDay(constraints.windowEnd(aDay))).atZone(viewZone).toInstant());
+
+        //Today we can't go back in time, so start from now if the window is already open
+        long candidate = windowStart;
+        if (aDay.isEqual(LocalDate.now(viewZone))) {
+            candidate = Math.max(candidate, nanosSince(origin, Instant.now()));
+        }
+        candidate = constraints.align(candidate);
+
         /*
-        * For each remaining event:
-        *   if there does NOT exist an event where (the event's endtime + howLong) does NOT intersect the next event 
-        *       return that time slot
+        * One pass over the sorted events of the UTC days the window (plus buffers) touches:
+        *   skip anything that is over (buffer included) before the candidate
+        *   if the candidate + howLong (+ buffer) ends before the event starts, that is our slot
+        *   otherwise push the candidate past the event (+ buffer) and line it up again
         *
-        * if nothing has been returned, return empty set
+        * The day's sets are read in place, no copy is made
         */
 
-        for (Event event : eventsToCheck) {
-            //If the end is before the next event's start we are done
-            if (result[0].plus(howLong).isBefore(event.getStartTime())) {
+        //The buffers reach past the window, so events just outside it on a neighbouring UTC day count too
+        LocalDate firstDay = utcDate(origin.plusNanos(windowStart - constraints.bufferBefore()));
+        LocalDate lastDay = utcDate(origin.plusNanos(windowEnd + constraints.bufferAfter()));
 
-                //Another overcap check here
-                if (result[0].plus(howLong).isAfter(LocalTime.MAX)) {
+        sweep:
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+
+            long dayOffset = nanosSince(origin, day.atStartOfDay(ZoneOffset.UTC).toInstant());
+
+            for (Event event : dayEvents(day)) {
+
+                long blockedFrom = dayOffset + event.getStartTime().toNanoOfDay() - constraints.bufferAfter();
+                long blockedUntil = dayOffset + endNanos(event) + constraints.bufferBefore();
+
+                //Once we are past the window there is no point looking at later events
+                if (candidate + length > windowEnd) {
                     return Optional.empty();
                 }
 
-                return Optional.of(result);
-            }
-
-            //Move result to 1 minute after the last checked event since the edges can't overlap 
-            result[0] = event.getEndTime().plusMinutes(1);
-            result[1] = result[0].plus(howLong);
+                if (candidate + length <= blockedFrom) {
+                    break sweep;
+                }
 
-            //Last and final overcap check
-            if (result[1].isAfter(LocalTime.MAX)) {
-                return Optional.empty();
+                if (blockedUntil > candidate) {
+                    candidate = constraints.align(blockedUntil);
+                }
             }
+        }
 
+        //Either we broke out early or the gap after the last event is the slot
+        if (candidate + length > windowEnd) {
+            return Optional.empty();
         }
-        
-        return Optional.empty();
+
+        return Optional.of(new ZonedDateTime[]{origin.plusNanos(candidate).atZone(viewZone),
+                                               origin.plusNanos(candidate + length).atZone(viewZone)});
     }
 
     //Remaining Public API Methods
 
+    /*
+     * Add an event given in the manager's own zone
+     */
+    public synchronized void addEvent(String title, LocalDateTime start, LocalDateTime end) {
+        addEvent(title, start.atZone(zone), end.atZone(zone));
+    }
+
     /*
      * This function is the main driver for adding events to the calendar.
      * It utilizes various helper functions as well as the TempEvent object
      */
-    public void addEvent(String title, LocalDateTime start, LocalDateTime end) {
+    public synchronized void addEvent(String title, ZonedDateTime start, ZonedDateTime end) {
 
         //Error handling
         if (end.isBefore(start)) {
             throw new IllegalArgumentException("Start must be before end");
         }
 
-        //Do the splitting in a helper function
-        List<TempEvent> segments = buildSegments(start, end);
+        //Do the splitting in a helper function, always on UTC days
+        List<TempEvent> segments = buildSegments(toUtc(start), toUtc(end));
 
         //Check if all the split events are legal to include
         validateSegments(segments);
 
+        //Bump the version before committing so any month written from here on carries it
+        version++;
+
         //Commit all parts of an event at once
         for (TempEvent event : segments) {
 
+            //The month may have been dropped while validating the other segments
+            if (store != null) {
+                ensureLoaded(YearMonth.from(event.date));
+            }
+
             //If there wasn't any events on that day just start that section with
             //computeIfAbsent
             NavigableSet<Event> eventsOfTheDay = eventsEachDay.computeIfAbsent(event.date, d -> new TreeSet<>());
             
             //Then add it to whatever we just got
-            eventsOfTheDay.add(new Event(title, event.start, event.end));
+            Event committed = new Event(title, event.start, event.end);
+            eventsOfTheDay.add(committed);
+            dirtyDays.add(event.date);
+
+            if (bulkPostings != null) {
+                bulkPostings.add(new TitleIndex.Posting(event.date, committed));
+            } else if (titleIndexComplete) {
+                titleIndex.add(event.date, committed);
+            }
+
+            if (rollups != null) {
+                rollups.computeIfAbsent(event.date, d -> new DailyRollup()).add(committed);
+            }
+
+            //Keep the budget honest for lazily loaded months
+            if (store != null) {
+                residentMonths.merge(YearMonth.from(event.date), 1, Integer::sum);
+                residentEvents++;
+            }
+        }
+
+        if (store != null) {
+            evictColdPartitions(YearMonth.from(segments.get(segments.size() - 1).date));
+        }
+
+        //Still under the lock, so the feed sees the changes in version order
+        if (changeFeed != null) {
+            changeFeed.publish(new ChangeEvent(version, title, start.toInstant(), end.toInstant()));
         }
 
     }
@@ -157,52 +532,180 @@ public class AppointmentManager {
 
     /*
      * This function saves all the events on the calendar.
+     * With a store that includes every month on disk, not just the ones in memory.
      */
-    public void saveToCSV(String filename) {
+    public synchronized void saveToCSV(String filename) {
 
-        //Get the formatting set up for the file
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+        //Write into a temp file next to the real one and swap it in at the end,
+        //that way a crash half way through never leaves a cut off events.csv
+        Path target = Paths.get(filename).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
 
         //Check if the file name is valid
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            //If so then for every day there are events we write then one by one into the file
-            for (var entry : eventsEachDay.entrySet()) {
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+
+                if (store == null) {
+                    writeDays(writer, eventsEachDay);
+                } else {
+                    //Resident months may be newer than their file, the rest are streamed one month at a time
+                    NavigableSet<YearMonth> months = new TreeSet<>(store.listPartitions());
+                    months.addAll(residentMonths.keySet());
+
+                    for (YearMonth month : months) {
+                        if (residentMonths.containsKey(month)) {
+                            writeDays(writer, eventsEachDay.subMap(month.atDay(1), true, month.atEndOfMonth(), true));
+                        } else {
+                            writeDays(writer, new TreeMap<>(store.readPartition(month)));
+                        }
+                    }
+                }
+            }
 
-                LocalDate date = entry.getKey();
+            PartitionedEventStore.replaceAtomically(temp, target);
 
-                for (Event event : entry.getValue()) {
+        } catch (IOException e) {
+            //This shouldn't happen since the code will start with events.csv, but just in case
+            e.printStackTrace();
+        }
+    }
 
-                    LocalDateTime startDateTime = date.atTime(event.getStartTime());
-                    LocalDateTime endDateTime = date.atTime(event.getEndTime());
+    /*
+     * This function writes only the months that have a dirty day back into the store.
+     * Anything untouched since the last save is already on disk, so it is left alone.
+     * The lock is only held while copying, not while writing.
+     * An in memory calendar has no store to save to, use saveToCSV for that one.
+     */
+    public void saveToStore() {
+
+        //Error handling
+        if (!hasStore()) {
+            throw new IllegalStateException("This calendar is only kept in memory, there is no store to save to");
+        }
+
+        persistCheckpoint(takeCheckpoint());
+    }
+
+    /*
+     * Whether addEvent has changed anything that hasn't made it to the disk yet.
+     * Without a store that is everything ever added, saveToCSV doesn't change it.
+     */
+    public synchronized boolean hasUnsavedChanges() {
+        return !dirtyDays.isEmpty() || !pendingMonths.isEmpty();
+    }
 
+    /*
+     * Whether the calendar is backed by a PartitionedEventStore at all
+     */
+    public boolean hasStore() {
+        return store != null;
+    }
+
+    /*
+     * The zone the LocalDate/LocalDateTime methods are read in
+     */
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /*
+     * How many addEvent calls have succeeded so far, read without the lock
+     */
+    public long getVersion() {
+        return version;
+    }
 
-                    String line = String.join(",",
-                                                event.getTitle(),
-                                                startDateTime.format(formatter),
-                                                endDateTime.format(formatter));
-                    writer.write(line);
-                    writer.newLine();
+    //Change Feed
 
+    /*
+     * Start publishing every committed addEvent, keeping the last `capacity` of them for
+     * subscribers that are behind or resuming. Delivery runs on the common fork-join pool.
+     * Opening it a second time hands back the same feed.
+     */
+    public synchronized ChangeFeed openChangeFeed(int capacity) {
+        return openChangeFeed(capacity, ForkJoinPool.commonPool());
+    }
+
+    public synchronized ChangeFeed openChangeFeed(int capacity, Executor executor) {
+        if (changeFeed == null) {
+            changeFeed = new ChangeFeed(capacity, executor, version);
+        }
+        return changeFeed;
+    }
+
+    //Checkpointing
+
+    /*
+     * Copy every dirty month and mark them clean. The copied months are pinned
+     * in memory until persistCheckpoint is done with them.
+     */
+    synchronized Checkpoint takeCheckpoint() {
+
+        Map<YearMonth, Map<LocalDate, NavigableSet<Event>>> months = new TreeMap<>();
+
+        if (store == null) return new Checkpoint(version, months);
+
+        for (LocalDate day : dirtyDays) {
+            months.computeIfAbsent(YearMonth.from(day), this::copyMonth);
+        }
+        dirtyDays.clear();
+
+        for (YearMonth month : months.keySet()) {
+            pendingMonths.merge(month, 1, Integer::sum);
+        }
+
+        return new Checkpoint(version, months);
+    }
+
+    /*
+     * Write a checkpoint into the store. This deliberately does NOT take the lock,
+     * so events can keep being added while the files are written.
+     * The index is written once at the end rather than after every month.
+     * Months that fail to write (or whose index entry never made it) are marked dirty again for the next attempt.
+     */
+    boolean persistCheckpoint(Checkpoint checkpoint) {
+
+        Map<YearMonth, Boolean> written = new HashMap<>();
+
+        try {
+            for (var entry : checkpoint.months.entrySet()) {
+                try {
+                    store.writePartition(entry.getKey(), entry.getValue(), checkpoint.version, false);
+                    written.put(entry.getKey(), true);
+                } catch (IOException e) {
+                    e.printStackTrace();
                 }
-                
             }
-        } catch (IOException e) {
-            //This shouldn't happen since the code will start with events.csv, but just in case
-            e.printStackTrace();
+
+            //A month missing from the index is as good as lost, so without it nothing counts as saved
+            if (!checkpoint.isEmpty()) {
+                try {
+                    store.writeIndex();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    written.clear();
+                }
+            }
+        } finally {
+            for (var entry : checkpoint.months.entrySet()) {
+                finishPending(entry.getKey(), entry.getValue().keySet(), written.containsKey(entry.getKey()));
+            }
         }
+
+        return written.size() == checkpoint.months.size();
     }
 
     /*
      * This function loads all the events onto the calendar.
      */
-    public void loadFromCSV(String filename) {
-
-        //Get the formatting set up for the file
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    public synchronized void loadFromCSV(String filename) {
 
         File file = new File(filename);
         if (!file.exists()) return;
 
+        //Hold back the title index while loading and do it all in parallel at the end
+        bulkPostings = new ArrayList<>();
+
         try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
 
             //As long as something exists on the line, get it and put it into the calendar
@@ -214,17 +717,25 @@ public class AppointmentManager {
                 if (parts.length != 3) continue;
 
                 //Parse the split, then add the event to the correct date
+                //Files from before the UTC change have no offset, those were written in our own zone
                 String title = parts[0];
-                LocalDateTime start = LocalDateTime.parse(parts[1], formatter);
-                LocalDateTime end = LocalDateTime.parse(parts[2], formatter);
+                LocalDateTime start = PartitionedEventStore.parseUtc(parts[1], zone);
+                LocalDateTime end = PartitionedEventStore.parseUtc(parts[2], zone);
 
-                addEvent(title, start, end);
+                addEvent(title, start.atZone(ZoneOffset.UTC), end.atZone(ZoneOffset.UTC));
 
             }
 
         } catch (IOException e) {
             //This shouldn't happen since the code will start with events.csv, but just in case
             e.printStackTrace();
+        } finally {
+            List<TitleIndex.Posting> loaded = bulkPostings;
+            bulkPostings = null;
+            //An index that isn't complete yet picks these up with the rest of the store
+            if (titleIndexComplete) {
+                titleIndex.addAll(loaded);
+            }
         }
 
     }
@@ -232,6 +743,227 @@ public class AppointmentManager {
 
     //Helper Functions
 
+    /*
+     * Helper function to write days of events as CSV lines, in UTC so written with a Z
+     */
+    private static void writeDays(BufferedWriter writer, Map<LocalDate, NavigableSet<Event>> days) throws IOException {
+
+        //For every day there are events we write them one by one into the file
+        for (var entry : days.entrySet()) {
+
+            LocalDate date = entry.getKey();
+
+            for (Event event : entry.getValue()) {
+
+                String line = String.join(",",
+                                            event.getTitle(),
+                                            PartitionedEventStore.formatUtc(date.atTime(event.getStartTime())),
+                                            PartitionedEventStore.formatUtc(date.atTime(event.getEndTime())));
+                writer.write(line);
+                writer.newLine();
+            }
+        }
+    }
+
+    /*
+     * Every read of eventsEachDay goes through here so the month gets pulled
+     * in from the store first. Never returns null.
+     */
+    private NavigableSet<Event> dayEvents(LocalDate aDay) {
+        if (store != null) {
+            ensureLoaded(YearMonth.from(aDay));
+        }
+        return eventsEachDay.getOrDefault(aDay, Collections.emptyNavigableSet());
+    }
+
+    /*
+     * Helper function to pull a month partition into memory the first time it is needed
+     */
+    private void ensureLoaded(YearMonth month) {
+
+        //The get also marks the month as recently used
+        if (residentMonths.get(month) != null) return;
+
+        int count = 0;
+
+        if (store.hasPartition(month)) {
+            try {
+                for (var entry : store.readPartition(month).entrySet()) {
+                    //No indexing here, the title index covers the store whether the month is in memory or not
+                    eventsEachDay.put(entry.getKey(), entry.getValue());
+                    count += entry.getValue().size();
+                }
+            } catch (IOException e) {
+                //Unlike a missing events.csv we can't just carry on here, the month would be overwritten empty
+                throw new UncheckedIOException("Could not load events for " + month, e);
+            }
+        }
+
+        residentMonths.put(month, count);
+        residentEvents += count;
+
+        evictColdPartitions(month);
+    }
+
+    /*
+     * Helper function to write back and drop the least recently used months
+     * until we are under the budget. The month being worked on is never dropped.
+     */
+    private void evictColdPartitions(YearMonth keep) {
+
+        Iterator<Map.Entry<YearMonth, Integer>> coldest = residentMonths.entrySet().iterator();
+
+        while (residentEvents > maxResidentEvents && coldest.hasNext()) {
+
+            Map.Entry<YearMonth, Integer> entry = coldest.next();
+            YearMonth month = entry.getKey();
+            if (month.equals(keep) || pendingMonths.containsKey(month)) continue;
+
+            //Clean months are already on disk, dirty ones have to make it there before we drop them
+            if (isDirty(month) && !writePartition(month)) return;
+
+            //Drop every day of the month from the map
+            eventsEachDay.subMap(month.atDay(1), true, month.atEndOfMonth(), true).clear();
+
+            residentEvents -= entry.getValue();
+            coldest.remove();
+        }
+    }
+
+    /*
+     * Helper function to read a month that isn't resident straight into postings for the title index
+     */
+    private List<TitleIndex.Posting> readPartitionPostings(YearMonth month) {
+
+        List<TitleIndex.Posting> result = new ArrayList<>();
+
+        try {
+            for (var entry : store.readPartition(month).entrySet()) {
+                for (Event event : entry.getValue()) {
+                    result.add(new TitleIndex.Posting(entry.getKey(), event));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not index events for " + month, e);
+        }
+
+        return result;
+    }
+
+    private Map<LocalDate, DailyRollup> readPartitionRollups(YearMonth month) {
+
+        Map<LocalDate, DailyRollup> result = new HashMap<>();
+
+        try {
+            for (var entry : store.readPartition(month).entrySet()) {
+                result.put(entry.getKey(), rollupOf(entry.getValue()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read events for " + month, e);
+        }
+
+        return result;
+    }
+
+    private static DailyRollup rollupOf(Collection<Event> events) {
+        DailyRollup rollup = new DailyRollup();
+        for (Event event : events) {
+            rollup.add(event);
+        }
+        return rollup;
+    }
+
+    /*
+     * Helper function to check if any day of a month is waiting to be saved
+     */
+    private boolean isDirty(YearMonth month) {
+        LocalDate firstDirty = dirtyDays.ceiling(month.atDay(1));
+        return firstDirty != null && !firstDirty.isAfter(month.atEndOfMonth());
+    }
+
+    /*
+     * Helper function to hand one month of eventsEachDay over to the store.
+     * Once it is on disk the month's days are no longer dirty.
+     */
+    private boolean writePartition(YearMonth month) {
+
+        try {
+            store.writePartition(month, monthOfDays(month, false), version);
+            dirtyDays.subSet(month.atDay(1), true, month.atEndOfMonth(), true).clear();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    //Time Zone Helpers
+
+    private static boolean isUtc(ZoneId aZone) {
+        return aZone.normalized().equals(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toUtc(ZonedDateTime dateTime) {
+        return dateTime.withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    private static LocalDate utcDate(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static long nanosSince(Instant origin, Instant instant) {
+        return Duration.between(origin, instant).toNanos();
+    }
+
+    /*
+     * A segment ending at LocalTime.MAX really runs up to the next midnight
+     */
+    private static long endNanos(Event event) {
+        return event.getEndTime().equals(LocalTime.MAX) ? Duration.ofDays(1).toNanos() : event.getEndTime().toNanoOfDay();
+    }
+
+    private static Instant startInstant(LocalDate utcDay, Event event) {
+        return utcDay.atTime(event.getStartTime()).toInstant(ZoneOffset.UTC);
+    }
+
+    private static Instant endInstant(LocalDate utcDay, Event event) {
+        return utcDay.atStartOfDay().toInstant(ZoneOffset.UTC).plusNanos(endNanos(event));
+    }
+
+    /*
+     * Helper function to cut an event down to [from, to) and show it in viewZone
+     */
+    private static ZonedEvent clip(String title, Instant start, Instant end, Instant from, Instant to, ZoneId viewZone) {
+        Instant clippedStart = start.isBefore(from) ? from : start;
+        Instant clippedEnd = end.isAfter(to) ? to : end;
+        return new ZonedEvent(title, clippedStart.atZone(viewZone), clippedEnd.atZone(viewZone));
+    }
+
+    /*
+     * Helper function to turn zoned events of a day back into plain Events for the LocalDate methods.
+     * Anything running into the next day ends at 23:59:59.999 like buildSegments does.
+     */
+    private static NavigableSet<Event> toLocalEvents(List<ZonedEvent> events, LocalDate aDay) {
+
+        NavigableSet<Event> result = new TreeSet<>();
+
+        for (ZonedEvent event : events) {
+
+            LocalTime start = event.getStart().toLocalTime();
+            LocalTime end = event.getEnd().toLocalDate().isAfter(aDay) ? LocalTime.MAX : event.getEnd().toLocalTime();
+
+            //Inside the hour that repeats when the clocks go back the end can read earlier than the start,
+            //plain local times can't show that so the zoned listing is the one to use there
+            if (end.isBefore(start)) {
+                end = start;
+            }
+
+            result.add(new Event(event.getTitle(), start, end));
+        }
+
+        return result;
+    }
+
     /*
      * Helper function to split an event across multiple days if needed
      */
@@ -285,7 +1017,8 @@ public class AppointmentManager {
 
         for (TempEvent event : segments) {
 
-            NavigableSet<Event> eventsOfTheDay = listADaysEvents(event.date);
+            //Straight from the UTC day, no copy needed just to look
+            NavigableSet<Event> eventsOfTheDay = dayEvents(event.date);
 
             Event probe = new Event("probe", event.start, event.end);
 
@@ -305,7 +1038,92 @@ public class AppointmentManager {
 
     }
 
-    //Inner Class
+    /*
+     * Helper function to gather the days of a month, copying the sets when they leave the lock
+     */
+    private Map<LocalDate, NavigableSet<Event>> monthOfDays(YearMonth month, boolean copy) {
+
+        Map<LocalDate, NavigableSet<Event>> days = new HashMap<>();
+
+        for (var entry : eventsEachDay.subMap(month.atDay(1), true, month.atEndOfMonth(), true).entrySet()) {
+            //Events themselves are immutable so copying the set is enough
+            days.put(entry.getKey(), copy ? new TreeSet<>(entry.getValue()) : entry.getValue());
+        }
+
+        return days;
+    }
+
+    private Map<LocalDate, NavigableSet<Event>> copyMonth(YearMonth month) {
+        return monthOfDays(month, true);
+    }
+
+    /*
+     * Helper function to unpin a month once its checkpoint write is over
+     */
+    private synchronized void finishPending(YearMonth month, Set<LocalDate> days, boolean written) {
+
+        if (!written) {
+            dirtyDays.addAll(days);
+        }
+
+        pendingMonths.computeIfPresent(month, (m, count) -> count == 1 ? null : count - 1);
+    }
+
+    //Inner Classes
+
+    /*
+     * The dirty months copied out by takeCheckpoint, along with the version they were copied at
+     */
+    static class Checkpoint {
+        final long version;
+        final Map<YearMonth, Map<LocalDate, NavigableSet<Event>>> months;
+
+        Checkpoint(long version, Map<YearMonth, Map<LocalDate, NavigableSet<Event>>> months) {
+            this.version = version;
+            this.months = months;
+        }
+
+        boolean isEmpty() {
+            return months.isEmpty();
+        }
+    }
+
+    /*
+     * One event put back together from the pieces buildSegments split it into at UTC midnight.
+     * Only a piece running to midnight followed by the same title starting at the next midnight
+     * is a continuation, so back to back events that share a title stay apart.
+     */
+    private static class JoinedEvent {
+        final String title;
+        final Instant start;
+        Instant end;
+        LocalDate lastDay;
+        boolean runsToMidnight;
+
+        JoinedEvent(LocalDate day, Event piece) {
+            this.title = piece.getTitle();
+            this.start = startInstant(day, piece);
+            this.end = endInstant(day, piece);
+            this.lastDay = day;
+            this.runsToMidnight = piece.getEndTime().equals(LocalTime.MAX);
+        }
+
+        /*
+         * Take the next piece in time order if it carries on this event, false if it is a new one
+         */
+        boolean extend(LocalDate day, Event piece) {
+
+            if (!runsToMidnight || !day.equals(lastDay.plusDays(1))
+                    || !piece.getStartTime().equals(LocalTime.MIDNIGHT) || !title.equals(piece.getTitle())) {
+                return false;
+            }
+
+            end = endInstant(day, piece);
+            lastDay = day;
+            runsToMidnight = piece.getEndTime().equals(LocalTime.MAX);
+            return true;
+        }
+    }
 
     /*
      * This is a small helper object used for event validation
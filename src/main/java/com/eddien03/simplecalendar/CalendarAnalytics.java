@@ -0,0 +1,354 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * 1) Get a DailyRollup for every day of the range
+ *      - put together from the manager's rollups if they are turned on
+ *      - otherwise one fork-join task per month partition, each building its own days
+ * 2) Cut the days into periods (day, week, month) and add each period up in parallel
+ *
+ * Days, weeks, months and hours are read in a ZoneId, the manager's own zone unless told
+ * otherwise, so a report agrees with listADaysEvents. The rollups are per UTC day in UTC hours,
+ * and as long as the zone is a whole number of hours off UTC a day of the zone is just a run
+ * of those hours (23 or 25 of them on a DST day). Only zones like +05:30 have to fall back
+ * to reading the events, with each piece cut at the zone's midnights and hours.
+ * Weeks run Monday to Sunday, the first and last period are cut to the range
+ *
+ */
+
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjuster;
+import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class CalendarAnalytics {
+
+    //Instance Variables & Constructors
+
+    private final AppointmentManager manager;
+    private final ZoneId zone;
+    private final ForkJoinPool pool;
+
+    public CalendarAnalytics(AppointmentManager manager) {
+        this(manager, manager.getZone(), ForkJoinPool.commonPool());
+    }
+
+    public CalendarAnalytics(AppointmentManager manager, ForkJoinPool pool) {
+        this(manager, manager.getZone(), pool);
+    }
+
+    public CalendarAnalytics(AppointmentManager manager, ZoneId zone) {
+        this(manager, zone, ForkJoinPool.commonPool());
+    }
+
+    public CalendarAnalytics(AppointmentManager manager, ZoneId zone, ForkJoinPool pool) {
+        this.manager = manager;
+        this.zone = zone;
+        this.pool = pool;
+    }
+
+    //Public API
+
+    public OccupancyReport forDay(LocalDate day) {
+        return total(day, day);
+    }
+
+    /*
+     * One report covering the whole range
+     */
+    public OccupancyReport total(LocalDate from, LocalDate to) {
+        return report(from, to, day -> to).get(0);
+    }
+
+    public List<OccupancyReport> byDay(LocalDate from, LocalDate to) {
+        return report(from, to, day -> day);
+    }
+
+    public List<OccupancyReport> byWeek(LocalDate from, LocalDate to) {
+        return report(from, to, TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+    }
+
+    public List<OccupancyReport> byMonth(LocalDate from, LocalDate to) {
+        return report(from, to, TemporalAdjusters.lastDayOfMonth());
+    }
+
+    //Helper Functions
+
+    /*
+     * Build the days once, then add up each period on its own
+     */
+    private List<OccupancyReport> report(LocalDate from, LocalDate to, TemporalAdjuster endOfPeriod) {
+
+        //Error handling
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The range must end on or after its start");
+        }
+
+        DailyRollup[] days = collectDays(from, to);
+
+        //Each period is [first day index, last day index]
+        List<int[]> periods = new ArrayList<>();
+        LocalDate start = from;
+        while (!start.isAfter(to)) {
+            LocalDate end = start.with(endOfPeriod);
+            if (end.isAfter(to)) end = to;
+
+            periods.add(new int[]{(int) ChronoUnit.DAYS.between(from, start), (int) ChronoUnit.DAYS.between(from, end)});
+            start = end.plusDays(1);
+        }
+
+        //Ordered so the reports come back in date order
+        return pool.submit(() -> IntStream.range(0, periods.size())
+                                          .parallel()
+                                          .mapToObj(i -> summarize(from, days, periods.get(i)[0], periods.get(i)[1]))
+                                          .collect(Collectors.toList()))
+                   .join();
+    }
+
+    /*
+     * A rollup for every day of the range, index 0 being from
+     */
+    private DailyRollup[] collectDays(LocalDate from, LocalDate to) {
+
+        int length = (int) ChronoUnit.DAYS.between(from, to) + 1;
+
+        //The UTC days holding the range, which can stick out a day on either side of it
+        Instant rangeStart = from.atStartOfDay(zone).toInstant();
+        Instant rangeEnd = to.plusDays(1).atStartOfDay(zone).toInstant();
+        LocalDate firstUtcDay = LocalDate.ofInstant(rangeStart, ZoneOffset.UTC);
+        LocalDate lastUtcDay = LocalDate.ofInstant(rangeEnd.minusNanos(1), ZoneOffset.UTC);
+
+        NavigableMap<LocalDate, DailyRollup> rollups = onWholeHours(rangeStart, rangeEnd) ? manager.copyRollups(firstUtcDay, lastUtcDay) : null;
+        DailyRollup[] days;
+
+        if (rollups != null) {
+            //Already added up by addEvent, just regroup the hours
+            days = new DailyRollup[length];
+            for (int i = 0; i < length; i++) {
+                days[i] = fromRollups(rollups, from.plusDays(i));
+            }
+        } else {
+            List<YearMonth> months = new ArrayList<>();
+            for (YearMonth month = YearMonth.from(firstUtcDay); !month.isAfter(YearMonth.from(lastUtcDay)); month = month.plusMonths(1)) {
+                months.add(month);
+            }
+            days = pool.invoke(new MonthTask(manager, zone, months, 0, months.size(), from, length));
+        }
+
+        //Days without events still count towards the free time
+        for (int i = 0; i < days.length; i++) {
+            if (days[i] == null) days[i] = new DailyRollup();
+        }
+
+        return days;
+    }
+
+    private OccupancyReport summarize(LocalDate from, DailyRollup[] days, int first, int last) {
+
+        long busy = 0;
+        int count = 0;
+        long[] hourly = new long[DailyRollup.HOURS];
+        int peakIndex = -1;
+        long peakBusy = 0;
+
+        for (int i = first; i <= last; i++) {
+            DailyRollup day = days[i];
+
+            busy += day.busyNanos;
+            count += day.eventCount;
+            for (int hour = 0; hour < DailyRollup.HOURS; hour++) {
+                hourly[hour] += day.hourlyBusyNanos[hour];
+            }
+
+            if (day.busyNanos > peakBusy) {
+                peakBusy = day.busyNanos;
+                peakIndex = i;
+            }
+        }
+
+        //Not always 24 hours a day once the clocks change
+        long total = Duration.between(from.plusDays(first).atStartOfDay(zone), from.plusDays(last + 1).atStartOfDay(zone)).toNanos();
+
+        return new OccupancyReport(from.plusDays(first), from.plusDays(last), busy, total, count, hourly,
+                                   peakIndex < 0 ? null : from.plusDays(peakIndex), peakBusy);
+    }
+
+    /*
+     * A day of the zone made out of the UTC hours it covers. The event count takes every piece
+     * touching the day (starting inside it or already running when it begins) and drops one for
+     * each piece running into a UTC midnight inside the day, its next piece carries the same event.
+     */
+    private DailyRollup fromRollups(NavigableMap<LocalDate, DailyRollup> rollups, LocalDate day) {
+
+        DailyRollup result = new DailyRollup();
+        Instant dayStart = day.atStartOfDay(zone).toInstant();
+        Instant dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant();
+
+        for (Instant hour = dayStart; hour.isBefore(dayEnd); hour = hour.plus(1, ChronoUnit.HOURS)) {
+
+            LocalDateTime utc = LocalDateTime.ofInstant(hour, ZoneOffset.UTC);
+            DailyRollup rollup = rollups.get(utc.toLocalDate());
+            int utcHour = utc.getHour();
+
+            if (rollup != null) {
+                long busy = rollup.hourlyBusyNanos[utcHour];
+                result.busyNanos += busy;
+                result.hourlyBusyNanos[hour.atZone(zone).getHour()] += busy;
+                result.eventCount += rollup.startsInHour[utcHour];
+                if (hour.equals(dayStart)) result.eventCount += rollup.runningAtHour[utcHour];
+            }
+
+            if (utcHour == 0 && !hour.equals(dayStart)) {
+                DailyRollup dayBefore = rollups.get(utc.toLocalDate().minusDays(1));
+                if (dayBefore != null) result.eventCount -= dayBefore.runsToMidnight;
+            }
+        }
+
+        return result;
+    }
+
+    /*
+     * Whether every UTC hour between the two instants is a whole hour of the zone too,
+     * true for most zones, false for ones like +05:30 or a DST change of half an hour
+     */
+    private boolean onWholeHours(Instant start, Instant end) {
+
+        ZoneRules rules = zone.getRules();
+        if (rules.getOffset(start).getTotalSeconds() % 3600 != 0) return false;
+
+        for (ZoneOffsetTransition change = rules.nextTransition(start);
+             change != null && change.getInstant().isBefore(end);
+             change = rules.nextTransition(change.getInstant())) {
+            if (change.getOffsetAfter().getTotalSeconds() % 3600 != 0) return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isUtc(ZoneId aZone) {
+        return aZone.normalized().equals(ZoneOffset.UTC);
+    }
+
+    //Inner Class
+
+    /*
+     * Splits the months in half until one is left, then turns that month into rollups.
+     * Every leaf fills its own array and the halves are merged on the way back up,
+     * since outside UTC two months can both have pieces of the same local day.
+     */
+    private static class MonthTask extends RecursiveTask<DailyRollup[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient AppointmentManager manager;
+        private final transient ZoneId zone;
+        private final transient List<YearMonth> months;
+        private final int lo;
+        private final int hi;
+        private final transient LocalDate from;
+        private final int length;
+
+        MonthTask(AppointmentManager manager, ZoneId zone, List<YearMonth> months, int lo, int hi, LocalDate from, int length) {
+            this.manager = manager;
+            this.zone = zone;
+            this.months = months;
+            this.lo = lo;
+            this.hi = hi;
+            this.from = from;
+            this.length = length;
+        }
+
+        @Override
+        protected DailyRollup[] compute() {
+
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                MonthTask left = new MonthTask(manager, zone, months, lo, mid, from, length);
+                MonthTask right = new MonthTask(manager, zone, months, mid, hi, from, length);
+                invokeAll(left, right);
+                return merge(left.join(), right.join());
+            }
+
+            DailyRollup[] days = new DailyRollup[length];
+            boolean utc = isUtc(zone);
+
+            for (var entry : manager.readMonth(months.get(lo)).entrySet()) {
+
+                LocalDate day = entry.getKey();
+
+                if (utc) {
+                    //Stored days are the report's days
+                    int index = (int) ChronoUnit.DAYS.between(from, day);
+                    if (index < 0 || index >= length) continue;
+
+                    for (Event event : entry.getValue()) {
+                        rollupAt(days, index).add(event);
+                    }
+                } else {
+                    for (Event event : entry.getValue()) {
+                        addLocal(days, day, event);
+                    }
+                }
+            }
+
+            return days;
+        }
+
+        /*
+         * Spread one stored piece over the local days it touches.
+         * A piece running to UTC midnight always has a next piece starting there, so when that
+         * midnight falls inside a local day the next piece is the one that counts the event.
+         */
+        private void addLocal(DailyRollup[] days, LocalDate utcDay, Event event) {
+
+            boolean runsToMidnight = event.getEndTime().equals(LocalTime.MAX);
+            Instant start = utcDay.atTime(event.getStartTime()).toInstant(ZoneOffset.UTC);
+            Instant end = runsToMidnight ? utcDay.plusDays(1).atStartOfDay().toInstant(ZoneOffset.UTC)
+                                         : utcDay.atTime(event.getEndTime()).toInstant(ZoneOffset.UTC);
+
+            for (LocalDate day = LocalDate.ofInstant(start, zone); ; day = day.plusDays(1)) {
+
+                Instant dayStart = day.atStartOfDay(zone).toInstant();
+                Instant dayEnd = day.plusDays(1).atStartOfDay(zone).toInstant();
+                boolean lastDay = !end.isAfter(dayEnd);
+
+                int index = (int) ChronoUnit.DAYS.between(from, day);
+                if (index >= length) return;
+
+                if (index >= 0) {
+                    boolean countIt = !(lastDay && runsToMidnight && end.isBefore(dayEnd));
+                    rollupAt(days, index).add(start.isAfter(dayStart) ? start : dayStart,
+                                              end.isBefore(dayEnd) ? end : dayEnd, zone, countIt);
+                }
+
+                if (lastDay) return;
+            }
+        }
+
+        private static DailyRollup rollupAt(DailyRollup[] days, int index) {
+            if (days[index] == null) days[index] = new DailyRollup();
+            return days[index];
+        }
+
+        private static DailyRollup[] merge(DailyRollup[] left, DailyRollup[] right) {
+            for (int i = 0; i < left.length; i++) {
+                if (right[i] == null) continue;
+                if (left[i] == null) {
+                    left[i] = right[i];
+                } else {
+                    left[i].merge(right[i]);
+                }
+            }
+            return left;
+        }
+    }
+
+}
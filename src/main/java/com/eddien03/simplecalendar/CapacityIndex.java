@@ -0,0 +1,279 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * Every booking [start, end) is stored as +1 at start and -1 at end, so the number of
+ * bookings running at time t is the sum of every change at or before t.
+ *
+ * The changes live in a treap (a randomly balanced binary search tree) keyed by time.
+ * Each node also knows, for its whole subtree in time order:
+ *   sum       -> total of the changes
+ *   maxPrefix -> highest running total reached
+ *   minPrefix -> lowest running total reached
+ * which is enough to answer "how busy is it at t", "how busy does it get over [s, e)",
+ * and "where is the next point it gets full / has room" in O(log n)
+ *
+ * Times are plain longs, ResourceCalendar uses nanos since the epoch
+ *
+ */
+
+import java.util.Random;
+
+class CapacityIndex {
+
+    static final long NONE = Long.MIN_VALUE;
+
+    //Fixed seed so the tree shape (and any bug) is the same on every run
+    private final Random random = new Random(42);
+    private Node root;
+
+    //Updating
+
+    /*
+     * Record count more bookings running over [start, end), an empty range changes nothing
+     */
+    void addInterval(long start, long end, int count) {
+        if (start < end) {
+            add(start, count);
+            add(end, -count);
+        }
+    }
+
+    //Queries
+
+    /*
+     * How many bookings are running at time t
+     */
+    int countAt(long t) {
+
+        int total = 0;
+        Node node = root;
+
+        while (node != null) {
+            if (node.key <= t) {
+                total += sum(node.left) + node.delta;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+
+        return total;
+    }
+
+    /*
+     * The most bookings running at any moment of [start, end)
+     */
+    int maxOver(long start, long end) {
+
+        int best = countAt(start);
+
+        //Only the changes strictly inside the range can push it higher
+        Node[] upToStart = split(root, start + 1);
+        Node[] inside = split(upToStart[1], end);
+
+        if (inside[0] != null) {
+            best = Math.max(best, sum(upToStart[0]) + inside[0].maxPrefix);
+        }
+
+        root = merge(upToStart[0], merge(inside[0], inside[1]));
+        return best;
+    }
+
+    /*
+     * Earliest t >= from where [t, t + length) never reaches limit, as long as it ends by until.
+     * Each step either jumps to the next point the count drops below limit or to the next
+     * point inside the candidate where it hits limit, both O(log n).
+     */
+    long findSlot(long from, long until, long length, int limit) {
+
+        long t = from;
+
+        while (t + length <= until) {
+
+            if (countAt(t) >= limit) {
+                t = firstBelowAfter(t, limit);
+                //Every booking ends eventually so this shouldn't happen, but just in case
+                if (t == NONE) return NONE;
+                continue;
+            }
+
+            long blocked = firstAtLeastBetween(t, t + length, limit);
+            if (blocked == NONE) return t;
+
+            t = blocked;
+        }
+
+        return NONE;
+    }
+
+    //Helper Functions
+
+    private void add(long key, int delta) {
+
+        Node[] before = split(root, key);
+        Node[] at = split(before[1], key + 1);
+
+        Node node = at[0];
+        if (node == null) {
+            node = new Node(key, delta, random.nextInt());
+        } else {
+            node.delta += delta;
+            update(node);
+        }
+
+        //A change that cancels out is just dropped
+        if (node.delta == 0) node = null;
+
+        root = merge(merge(before[0], node), at[1]);
+    }
+
+    /*
+     * First change after `after` that brings the count under limit
+     */
+    private long firstBelowAfter(long after, int limit) {
+
+        Node[] parts = split(root, after + 1);
+        long found = NONE;
+
+        int offset = sum(parts[0]);
+        Node node = parts[1];
+
+        if (node != null && offset + node.minPrefix < limit) {
+            while (node != null) {
+                if (node.left != null && offset + node.left.minPrefix < limit) {
+                    node = node.left;
+                    continue;
+                }
+                offset += sum(node.left) + node.delta;
+                if (offset < limit) {
+                    found = node.key;
+                    break;
+                }
+                node = node.right;
+            }
+        }
+
+        root = merge(parts[0], parts[1]);
+        return found;
+    }
+
+    /*
+     * First change strictly between after and before that brings the count up to limit
+     */
+    private long firstAtLeastBetween(long after, long before, int limit) {
+
+        Node[] upToAfter = split(root, after + 1);
+        Node[] inside = split(upToAfter[1], before);
+        long found = NONE;
+
+        int offset = sum(upToAfter[0]);
+        Node node = inside[0];
+
+        if (node != null && offset + node.maxPrefix >= limit) {
+            while (node != null) {
+                if (node.left != null && offset + node.left.maxPrefix >= limit) {
+                    node = node.left;
+                    continue;
+                }
+                offset += sum(node.left) + node.delta;
+                if (offset >= limit) {
+                    found = node.key;
+                    break;
+                }
+                node = node.right;
+            }
+        }
+
+        root = merge(upToAfter[0], merge(inside[0], inside[1]));
+        return found;
+    }
+
+    /*
+     * Split into keys < key and keys >= key
+     */
+    private static Node[] split(Node node, long key) {
+
+        if (node == null) return new Node[]{null, null};
+
+        if (node.key < key) {
+            Node[] right = split(node.right, key);
+            node.right = right[0];
+            update(node);
+            return new Node[]{node, right[1]};
+        }
+
+        Node[] left = split(node.left, key);
+        node.left = left[1];
+        update(node);
+        return new Node[]{left[0], node};
+    }
+
+    /*
+     * Join two trees where every key of a is below every key of b
+     */
+    private static Node merge(Node a, Node b) {
+
+        if (a == null) return b;
+        if (b == null) return a;
+
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            update(a);
+            return a;
+        }
+
+        b.left = merge(a, b.left);
+        update(b);
+        return b;
+    }
+
+    private static int sum(Node node) {
+        return node == null ? 0 : node.sum;
+    }
+
+    private static void update(Node node) {
+
+        int leftSum = sum(node.left);
+        int throughNode = leftSum + node.delta;
+
+        node.sum = throughNode + sum(node.right);
+
+        int max = throughNode;
+        int min = throughNode;
+
+        if (node.left != null) {
+            max = Math.max(max, node.left.maxPrefix);
+            min = Math.min(min, node.left.minPrefix);
+        }
+        if (node.right != null) {
+            max = Math.max(max, throughNode + node.right.maxPrefix);
+            min = Math.min(min, throughNode + node.right.minPrefix);
+        }
+
+        node.maxPrefix = max;
+        node.minPrefix = min;
+    }
+
+    //Inner Class
+
+    private static final class Node {
+        final long key;
+        final int priority;
+        int delta;
+        Node left;
+        Node right;
+        int sum;
+        int maxPrefix;
+        int minPrefix;
+
+        Node(long key, int delta, int priority) {
+            this.key = key;
+            this.delta = delta;
+            this.priority = priority;
+            update(this);
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * long sequence;   -> the manager's version right after this event was added
+ * String title;
+ * Instant start;
+ * Instant end;
+ *
+ * One committed addEvent as it goes out on the ChangeFeed.
+ * It is the whole event, not the per day pieces it was stored as
+ *
+ */
+
+import java.time.Instant;
+
+public class ChangeEvent {
+
+    private final long sequence;
+    private final String title;
+    private final Instant start;
+    private final Instant end;
+
+    //Constructor
+    public ChangeEvent(long sequence, String title, Instant start, Instant end) {
+        this.sequence = sequence;
+        this.title = title;
+        this.start = start;
+        this.end = end;
+    }
+
+    //Getters
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * A ring buffer holding the last `capacity` ChangeEvents, shared by every subscriber.
+ * Each subscription only keeps the next sequence it wants and how many it was asked for.
+ *
+ * Publishing never waits on a subscriber: it just drops the change into the ring.
+ * A subscriber only gets as many changes as it requested (backpressure), and can
+ * resume from any sequence that is still in the ring. One that falls further behind
+ * than the ring holds gets onError and has to reload instead.
+ *
+ * Delivery happens on the executor, never on the thread calling addEvent
+ *
+ */
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ChangeFeed implements Flow.Publisher<ChangeEvent> {
+
+    //Instance Variables & Constructor
+
+    private final ChangeEvent[] ring;
+    private final Executor executor;
+    private final Set<FeedSubscription> subscriptions;
+
+    //Guarded by this, the oldest sequence still in the ring and the newest one published
+    private long oldestSequence;
+    private long latestSequence;
+
+    ChangeFeed(int capacity, Executor executor, long startSequence) {
+
+        //Error handling
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The feed must hold at least one change");
+        }
+
+        this.ring = new ChangeEvent[capacity];
+        this.executor = executor;
+        this.subscriptions = ConcurrentHashMap.newKeySet();
+        this.oldestSequence = startSequence + 1;
+        this.latestSequence = startSequence;
+    }
+
+    //Public API
+
+    /*
+     * Subscribe to changes made from now on
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber) {
+        subscribe(subscriber, getLatestSequence());
+    }
+
+    /*
+     * Subscribe starting right after afterSequence, e.g. the last one a follower applied
+     */
+    public void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber, long afterSequence) {
+        FeedSubscription subscription = new FeedSubscription(subscriber, afterSequence + 1);
+        subscriptions.add(subscription);
+        executor.execute(subscription::start);
+    }
+
+    public synchronized long getLatestSequence() {
+        return latestSequence;
+    }
+
+    public synchronized long getOldestSequence() {
+        return oldestSequence;
+    }
+
+    //Used by AppointmentManager
+
+    /*
+     * Add a committed change. Called under the manager's lock so sequences arrive in order.
+     */
+    void publish(ChangeEvent change) {
+
+        synchronized (this) {
+            latestSequence = change.getSequence();
+            ring[(int) (latestSequence % ring.length)] = change;
+            oldestSequence = Math.max(oldestSequence, latestSequence - ring.length + 1);
+        }
+
+        for (FeedSubscription subscription : subscriptions) {
+            subscription.signal();
+        }
+    }
+
+    //Helper Functions
+
+    /*
+     * The change with this sequence, null if it hasn't happened yet.
+     * Check isDropped first, once a change is out of the ring its slot holds a newer one.
+     */
+    private synchronized ChangeEvent read(long sequence) {
+        if (sequence > latestSequence || sequence < oldestSequence) return null;
+        return ring[(int) (sequence % ring.length)];
+    }
+
+    private synchronized boolean isDropped(long sequence) {
+        return sequence < oldestSequence;
+    }
+
+    //Inner Class
+
+    /*
+     * wip counts signals that came in while a drain was running, so only one drain runs
+     * at a time and every onNext/onError for a subscriber happens one after the other
+     */
+    private final class FeedSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ChangeEvent> subscriber;
+        private final AtomicLong demand;
+        private final AtomicInteger wip;
+        private volatile boolean done;
+        private volatile Throwable badRequest;
+
+        //Only touched by whoever is draining
+        private long nextSequence;
+
+        FeedSubscription(Flow.Subscriber<? super ChangeEvent> subscriber, long nextSequence) {
+            this.subscriber = subscriber;
+            this.nextSequence = nextSequence;
+            this.demand = new AtomicLong();
+            //Held until onSubscribe returns so a request() inside it can't start a second drain
+            this.wip = new AtomicInteger(1);
+        }
+
+        @Override
+        public void request(long n) {
+
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Requested " + n + " changes, must be positive");
+            } else {
+                //Capped at Long.MAX_VALUE, which means "everything"
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+            subscriptions.remove(this);
+        }
+
+        void start() {
+            subscriber.onSubscribe(this);
+            drain();
+        }
+
+        void signal() {
+            if (wip.getAndIncrement() == 0) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+
+            int missed = 1;
+
+            while (true) {
+
+                while (!done) {
+
+                    if (badRequest != null) {
+                        fail(badRequest);
+                        break;
+                    }
+
+                    //Fell out of the ring, the subscriber has to reload
+                    if (isDropped(nextSequence)) {
+                        fail(new IllegalStateException("Change " + nextSequence + " is no longer held by the feed"));
+                        break;
+                    }
+
+                    if (demand.get() == 0) break;
+
+                    ChangeEvent change = read(nextSequence);
+                    if (change == null) break;
+
+                    try {
+                        subscriber.onNext(change);
+                    } catch (RuntimeException e) {
+                        //A subscriber that throws is done for
+                        cancel();
+                        break;
+                    }
+
+                    nextSequence++;
+
+                    if (demand.get() != Long.MAX_VALUE) {
+                        demand.decrementAndGet();
+                    }
+                }
+
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) return;
+            }
+        }
+
+        private void fail(Throwable error) {
+            cancel();
+            subscriber.onError(error);
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * A Flow.Subscriber that replays a ChangeFeed onto a second AppointmentManager.
+ * It asks for batchSize changes at a time and only asks for more once those are applied,
+ * so a slow follower slows down its own feed and nothing else.
+ *
+ * lastSequence is the last change applied, hand it to follow() again to resume
+ * after a disconnect without reloading the whole calendar
+ *
+ * Checking a change against lastSequence and applying it happen together under applyLock,
+ * so a change handed over twice (e.g. by an old subscription still draining after stop()
+ * and a new one from follow()) is only ever applied once
+ *
+ */
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.concurrent.Flow;
+
+public class ChangeFollower implements Flow.Subscriber<ChangeEvent> {
+
+    //Instance Variables & Constructor
+
+    private final AppointmentManager target;
+    private final int batchSize;
+    private final Object applyLock = new Object();
+
+    //Guarded by this
+    private long lastSequence;
+    private Throwable failure;
+    private Flow.Subscription subscription;
+    private int leftInBatch;
+
+    /*
+     * lastSequence is the feed sequence target already matches, 0 for two empty managers
+     */
+    public ChangeFollower(AppointmentManager target, long lastSequence, int batchSize) {
+
+        //Error handling
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+
+        this.target = target;
+        this.lastSequence = lastSequence;
+        this.batchSize = batchSize;
+    }
+
+    //Public API
+
+    /*
+     * Start (or pick back up) following a feed from the last applied change
+     */
+    public synchronized void follow(ChangeFeed feed) {
+        failure = null;
+        feed.subscribe(this, lastSequence);
+    }
+
+    /*
+     * Stop following, follow() can be called again later to resume
+     */
+    public synchronized void stop() {
+        if (subscription != null) {
+            subscription.cancel();
+            subscription = null;
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /*
+     * Why the feed stopped, null while everything is fine
+     */
+    public synchronized Throwable getFailure() {
+        return failure;
+    }
+
+    /*
+     * Wait until the given sequence has been applied. Gives up on timeout or failure.
+     */
+    public synchronized boolean awaitSequence(long sequence, Duration timeout) throws InterruptedException {
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        while (lastSequence < sequence && failure == null) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) return false;
+            wait(Math.max(1, left / 1_000_000));
+        }
+
+        return lastSequence >= sequence;
+    }
+
+    //Flow.Subscriber
+
+    @Override
+    public synchronized void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        leftInBatch = batchSize;
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(ChangeEvent change) {
+
+        //Not under this, so stop() and the getters don't wait on the target manager
+        synchronized (applyLock) {
+
+            //Already have it, can happen when resuming from an older sequence
+            if (change.getSequence() <= getLastSequence()) {
+                requestMoreIfBatchDone();
+                return;
+            }
+
+            try {
+                target.addEvent(change.getTitle(), change.getStart().atZone(ZoneOffset.UTC), change.getEnd().atZone(ZoneOffset.UTC));
+            } catch (IllegalArgumentException e) {
+                //The target has drifted from the leader, following any further would only make it worse
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                stop();
+                return;
+            }
+
+            synchronized (this) {
+                lastSequence = change.getSequence();
+                notifyAll();
+            }
+        }
+
+        requestMoreIfBatchDone();
+    }
+
+    @Override
+    public synchronized void onError(Throwable error) {
+        failure = error;
+        subscription = null;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void onComplete() {
+        subscription = null;
+        notifyAll();
+    }
+
+    //Helper Functions
+
+    private synchronized void requestMoreIfBatchDone() {
+        if (--leftInBatch == 0 && subscription != null) {
+            leftInBatch = batchSize;
+            subscription.request(batchSize);
+        }
+    }
+
+}
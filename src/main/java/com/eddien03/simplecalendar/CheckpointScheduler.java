@@ -0,0 +1,145 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * One background thread that checks the manager every pollInterval and writes a checkpoint when
+ *   - changeThreshold events have been added since the last one, OR
+ *   - interval has passed and there is anything unsaved at all
+ *
+ * The manager is only locked while the dirty months are copied, the writing happens on
+ * the checkpoint thread, so adding events never waits on the disk
+ *
+ */
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+public class CheckpointScheduler implements AutoCloseable {
+
+    private static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMillis(250);
+
+    //Instance Variables & Constructors
+
+    private final AppointmentManager manager;
+    private final Duration interval;
+    private final int changeThreshold;
+    private final Duration pollInterval;
+    private final ScheduledExecutorService executor;
+
+    //Only ever touched from the checkpoint thread
+    private long lastCheckpointVersion;
+    private long lastCheckpointNanos;
+
+    public CheckpointScheduler(AppointmentManager manager, Duration interval, int changeThreshold) {
+        this(manager, interval, changeThreshold, DEFAULT_POLL_INTERVAL);
+    }
+
+    public CheckpointScheduler(AppointmentManager manager, Duration interval, int changeThreshold, Duration pollInterval) {
+
+        //Error handling
+        if (interval.isNegative() || interval.isZero() || pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("Intervals must be positive");
+        }
+        if (changeThreshold <= 0) {
+            throw new IllegalArgumentException("The change threshold must be positive");
+        }
+        if (!manager.hasStore()) {
+            throw new IllegalStateException("Only a calendar backed by a store can be checkpointed");
+        }
+
+        this.manager = manager;
+        this.interval = interval;
+        this.changeThreshold = changeThreshold;
+        this.pollInterval = pollInterval;
+
+        //Daemon so a forgotten close() doesn't keep the JVM alive, the shutdown hook does the last flush
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "calendar-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //Public API
+
+    /*
+     * Start polling the manager in the background
+     */
+    public void start() {
+        lastCheckpointVersion = manager.getVersion();
+        lastCheckpointNanos = System.nanoTime();
+
+        //In nanos, anything under a millisecond would round down to a delay of 0 which the executor refuses
+        long pollNanos = pollInterval.toNanos();
+        executor.scheduleWithFixedDelay(this::checkpointIfDue, pollNanos, pollNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Flush whatever is still dirty if the JVM is shut down without close() being called
+     */
+    public void installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "calendar-checkpoint-shutdown"));
+    }
+
+    /*
+     * Ask for a checkpoint right away, it still runs on the checkpoint thread.
+     * The future completes with false if any month failed to write.
+     */
+    public Future<Boolean> checkpointNow() {
+        return executor.submit(this::checkpoint);
+    }
+
+    /*
+     * Stop polling, wait for a running checkpoint and write out anything left over.
+     * Safe to call more than once.
+     */
+    @Override
+    public void close() {
+
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        //The executor is gone so this final flush happens on the calling thread
+        if (manager.hasUnsavedChanges()) {
+            manager.saveToStore();
+        }
+    }
+
+    //Helper Functions
+
+    private void checkpointIfDue() {
+
+        long changes = manager.getVersion() - lastCheckpointVersion;
+        boolean intervalPassed = System.nanoTime() - lastCheckpointNanos >= interval.toNanos();
+
+        if (changes >= changeThreshold || (intervalPassed && manager.hasUnsavedChanges())) {
+            checkpoint();
+        }
+    }
+
+    private boolean checkpoint() {
+
+        AppointmentManager.Checkpoint checkpoint = manager.takeCheckpoint();
+
+        lastCheckpointVersion = checkpoint.version;
+        lastCheckpointNanos = System.nanoTime();
+
+        //Nothing dirty, nothing to write
+        if (checkpoint.isEmpty()) return true;
+
+        try {
+            return manager.persistCheckpoint(checkpoint);
+        } catch (RuntimeException e) {
+            //A throw here would cancel the repeating task, so report it and try again next time
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+}
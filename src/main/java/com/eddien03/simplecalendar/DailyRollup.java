@@ -0,0 +1,109 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * long busyNanos;          -> total booked time of the day
+ * int eventCount;          -> how many event pieces the day holds
+ * long[] hourlyBusyNanos;  -> booked time inside each of the 24 hours
+ *
+ * Only kept up by add(Event), for the per UTC day rollups of AppointmentManager:
+ * int[] startsInHour;      -> pieces starting inside each hour
+ * int[] runningAtHour;     -> pieces already running when each hour begins
+ * int runsToMidnight;      -> pieces carrying on into the next day
+ * With these CalendarAnalytics can put a day of another zone together out of whole UTC hours,
+ * counting every piece that touches the day and taking off the ones that carry on inside it.
+ *
+ * Plain primitives only, so adding up years of these is just array math
+ *
+ */
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+class DailyRollup {
+
+    static final int HOURS = 24;
+    static final long HOUR_NANOS = Duration.ofHours(1).toNanos();
+    static final long DAY_NANOS = Duration.ofDays(1).toNanos();
+
+    long busyNanos;
+    int eventCount;
+    final long[] hourlyBusyNanos;
+    final int[] startsInHour;
+    final int[] runningAtHour;
+    int runsToMidnight;
+
+    DailyRollup() {
+        this.hourlyBusyNanos = new long[HOURS];
+        this.startsInHour = new int[HOURS];
+        this.runningAtHour = new int[HOURS];
+    }
+
+    /*
+     * Count one event of the day, spreading its time over the hours it covers
+     */
+    void add(Event event) {
+
+        long start = event.getStartTime().toNanoOfDay();
+        //A piece ending at LocalTime.MAX runs to midnight
+        long end = event.getEndTime().equals(LocalTime.MAX) ? DAY_NANOS : event.getEndTime().toNanoOfDay();
+
+        busyNanos += end - start;
+        eventCount++;
+        startsInHour[(int) (start / HOUR_NANOS)]++;
+        if (end == DAY_NANOS) runsToMidnight++;
+
+        for (int hour = (int) (start / HOUR_NANOS); hour < HOURS && hour * HOUR_NANOS < end; hour++) {
+            long hourStart = hour * HOUR_NANOS;
+            long hourEnd = hourStart + HOUR_NANOS;
+            hourlyBusyNanos[hour] += Math.min(end, hourEnd) - Math.max(start, hourStart);
+            if (hourStart > start) runningAtHour[hour]++;
+        }
+    }
+
+    /*
+     * Count the part [start, end) of an event that falls on this day of a zone, by the zone's
+     * clock hours. countEvent is false when another piece of the same event already counts it.
+     */
+    void add(Instant start, Instant end, ZoneId zone, boolean countEvent) {
+
+        busyNanos += Duration.between(start, end).toNanos();
+        if (countEvent) eventCount++;
+
+        Instant at = start;
+        while (at.isBefore(end)) {
+            ZonedDateTime local = at.atZone(zone);
+            Instant nextHour = local.truncatedTo(ChronoUnit.HOURS).plusHours(1).toInstant();
+            Instant until = nextHour.isBefore(end) ? nextHour : end;
+
+            hourlyBusyNanos[local.getHour()] += Duration.between(at, until).toNanos();
+            at = until;
+        }
+    }
+
+    /*
+     * Add another rollup on top of this one
+     */
+    void merge(DailyRollup other) {
+        busyNanos += other.busyNanos;
+        eventCount += other.eventCount;
+        runsToMidnight += other.runsToMidnight;
+        for (int hour = 0; hour < HOURS; hour++) {
+            hourlyBusyNanos[hour] += other.hourlyBusyNanos[hour];
+            startsInHour[hour] += other.startsInHour[hour];
+            runningAtHour[hour] += other.runningAtHour[hour];
+        }
+    }
+
+    DailyRollup copy() {
+        DailyRollup copy = new DailyRollup();
+        copy.merge(this);
+        return copy;
+    }
+
+}
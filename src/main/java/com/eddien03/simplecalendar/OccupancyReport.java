@@ -0,0 +1,111 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * LocalDate from, to;  -> the days covered (both included, in the zone the report was made in)
+ * busy / total time, event pieces, and the peaks inside the period
+ *
+ * Produced by CalendarAnalytics, one per day, week or month
+ *
+ */
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+public class OccupancyReport {
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final long busyNanos;
+    private final long totalNanos;
+    private final int eventCount;
+    private final long[] hourlyBusyNanos;
+    private final LocalDate peakDay;
+    private final long peakDayBusyNanos;
+
+    //Constructor
+    OccupancyReport(LocalDate from, LocalDate to, long busyNanos, long totalNanos, int eventCount,
+                    long[] hourlyBusyNanos, LocalDate peakDay, long peakDayBusyNanos) {
+        this.from = from;
+        this.to = to;
+        this.busyNanos = busyNanos;
+        this.totalNanos = totalNanos;
+        this.eventCount = eventCount;
+        this.hourlyBusyNanos = hourlyBusyNanos;
+        this.peakDay = peakDay;
+        this.peakDayBusyNanos = peakDayBusyNanos;
+    }
+
+    //Getters
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Duration getBusy() {
+        return Duration.ofNanos(busyNanos);
+    }
+
+    public Duration getFree() {
+        return Duration.ofNanos(totalNanos - busyNanos);
+    }
+
+    /*
+     * Share of the period that is booked, 0.0 to 1.0
+     */
+    public double getUtilization() {
+        return (double) busyNanos / totalNanos;
+    }
+
+    public double getFreeRatio() {
+        return 1.0 - getUtilization();
+    }
+
+    /*
+     * Event pieces, an event running over several days counts once per day
+     */
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /*
+     * Hour of the day (0-23) with the most booked time over the whole period, -1 if nothing was booked
+     */
+    public int getPeakHour() {
+
+        int peak = -1;
+        long most = 0;
+
+        for (int hour = 0; hour < hourlyBusyNanos.length; hour++) {
+            if (hourlyBusyNanos[hour] > most) {
+                most = hourlyBusyNanos[hour];
+                peak = hour;
+            }
+        }
+
+        return peak;
+    }
+
+    /*
+     * Booked time that fell inside the given hour of the day, added up over the period
+     */
+    public Duration getBusyInHour(int hour) {
+        return Duration.ofNanos(hourlyBusyNanos[hour]);
+    }
+
+    /*
+     * The busiest day of the period, null if nothing was booked
+     */
+    public LocalDate getPeakDay() {
+        return peakDay;
+    }
+
+    public Duration getPeakDayBusy() {
+        return Duration.ofNanos(peakDayBusyNanos);
+    }
+
+}
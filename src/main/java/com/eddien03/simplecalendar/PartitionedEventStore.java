@@ -0,0 +1,257 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * directory/
+ *   index.csv   -> one line per month that has events: yyyy-MM,eventCount
+ *   yyyy-MM.csv -> every event segment of that month, same line format as events.csv
+ *
+ * Months, days and times are all UTC, each time is written with a trailing Z
+ *
+ * Only the index is read up front, the month files are read when someone asks for them
+ * Every file is written to a .tmp first, forced to the disk and only then renamed over the
+ * real one, so a crash or power cut mid write leaves the old version behind instead of half a month
+ *
+ * Reads can happen from any thread, writes are synchronized. Each write carries the
+ * manager version it was copied at so an older copy never lands on top of a newer one
+ *
+ */
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+public class PartitionedEventStore {
+
+    private static final String INDEX_FILE = "index.csv";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final DateTimeFormatter PARSER = DateTimeFormatter.ISO_DATE_TIME;
+
+    //Instance Variables & Constructor
+
+    private final Path directory;
+    private final NavigableMap<YearMonth, Integer> index;
+    private final Map<YearMonth, Long> writtenVersions;
+
+    public PartitionedEventStore(Path directory) throws IOException {
+        this.directory = directory;
+        this.index = new ConcurrentSkipListMap<>();
+        this.writtenVersions = new HashMap<>();
+
+        Files.createDirectories(directory);
+        readIndex();
+    }
+
+    //Index Lookups
+
+    public boolean hasPartition(YearMonth month) {
+        return index.containsKey(month);
+    }
+
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    /*
+     * Get a COPY of the months that currently have a partition on disk
+     */
+    public NavigableSet<YearMonth> listPartitions() {
+        return new TreeSet<>(index.keySet());
+    }
+
+    /*
+     * How many event segments the index says a month holds, used for the memory budget
+     */
+    public int partitionSize(YearMonth month) {
+        return index.getOrDefault(month, 0);
+    }
+
+    //Partition Reading & Writing
+
+    /*
+     * This function reads a single month off the disk.
+     * If the month has no partition we just give back an empty map
+     */
+    public Map<LocalDate, NavigableSet<Event>> readPartition(YearMonth month) throws IOException {
+
+        Map<LocalDate, NavigableSet<Event>> days = new HashMap<>();
+        Path file = partitionFile(month);
+
+        if (!Files.exists(file)) return days;
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+
+                //Same format as events.csv so skip anything misaligned
+                String[] parts = line.split(",", 3);
+                if (parts.length != 3) continue;
+
+                LocalDateTime start = parseUtc(parts[1], ZoneOffset.UTC);
+                LocalDateTime end = parseUtc(parts[2], ZoneOffset.UTC);
+
+                //Every line is already a single day segment, so no splitting is needed here
+                days.computeIfAbsent(start.toLocalDate(), d -> new TreeSet<>())
+                    .add(new Event(parts[0], start.toLocalTime(), end.toLocalTime()));
+            }
+        }
+
+        return days;
+    }
+
+    /*
+     * This function replaces a whole month on disk with the given days.
+     * Writing an empty month removes the partition entirely.
+     * If a newer version of the month has already been written this does nothing.
+     */
+    public synchronized void writePartition(YearMonth month, Map<LocalDate, NavigableSet<Event>> days, long version) throws IOException {
+        writePartition(month, days, version, true);
+    }
+
+    /*
+     * Same as above, but when saving several months at once the index can be left for
+     * one writeIndex() at the end. Until then a new month can't be found after a restart.
+     */
+    synchronized void writePartition(YearMonth month, Map<LocalDate, NavigableSet<Event>> days, long version, boolean updateIndex) throws IOException {
+
+        Long written = writtenVersions.get(month);
+        if (written != null && written > version) return;
+        writtenVersions.put(month, version);
+
+        Path file = partitionFile(month);
+        int count = 0;
+
+        //Sort the days so the file reads in order
+        SortedMap<LocalDate, NavigableSet<Event>> sortedDays = new TreeMap<>(days);
+
+        for (NavigableSet<Event> events : sortedDays.values()) {
+            count += events.size();
+        }
+
+        if (count == 0) {
+            Files.deleteIfExists(file);
+            index.remove(month);
+            if (updateIndex) writeIndex();
+            return;
+        }
+
+        Path temp = tempFile(file);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            for (var entry : sortedDays.entrySet()) {
+
+                LocalDate date = entry.getKey();
+
+                for (Event event : entry.getValue()) {
+                    writer.write(String.join(",",
+                                            event.getTitle(),
+                                            formatUtc(date.atTime(event.getStartTime())),
+                                            formatUtc(date.atTime(event.getEndTime()))));
+                    writer.newLine();
+                }
+            }
+        }
+
+        replaceAtomically(temp, file);
+
+        index.put(month, count);
+        if (updateIndex) writeIndex();
+    }
+
+    /*
+     * Write the index out as it is now
+     */
+    synchronized void writeIndex() throws IOException {
+
+        Path file = directory.resolve(INDEX_FILE);
+        Path temp = tempFile(file);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+            for (var entry : index.entrySet()) {
+                writer.write(entry.getKey() + "," + entry.getValue());
+                writer.newLine();
+            }
+        }
+
+        replaceAtomically(temp, file);
+    }
+
+    //Shared File Format
+
+    /*
+     * Write a UTC date time the way every file of the calendar stores it
+     */
+    static String formatUtc(LocalDateTime utc) {
+        return utc.format(FORMATTER) + "Z";
+    }
+
+    /*
+     * Read a date time back as UTC. Older files have no offset at all,
+     * those are taken to be in zoneIfMissing
+     */
+    static LocalDateTime parseUtc(String text, ZoneId zoneIfMissing) {
+
+        TemporalAccessor parsed = PARSER.parseBest(text, OffsetDateTime::from, LocalDateTime::from);
+
+        if (parsed instanceof OffsetDateTime offsetDateTime) {
+            return offsetDateTime.atZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+        }
+
+        return ((LocalDateTime) parsed).atZone(zoneIfMissing).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    /*
+     * Swap a fully written temp file in for the real one.
+     * The data is forced to the disk first, otherwise after a power cut the rename can be
+     * there without the data, leaving an empty or cut off file in place of the old one.
+     * Not every file system can rename atomically, in that case a plain replace is the best we can do
+     */
+    static void replaceAtomically(Path temp, Path target) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    //Helper Functions
+
+    private static Path tempFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    private Path partitionFile(YearMonth month) {
+        return directory.resolve(month + ".csv");
+    }
+
+    private void readIndex() throws IOException {
+
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.exists(file)) return;
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+
+                String[] parts = line.split(",", 2);
+                if (parts.length != 2) continue;
+
+                index.put(YearMonth.parse(parts[0]), Integer.parseInt(parts[1]));
+            }
+        }
+    }
+
+}
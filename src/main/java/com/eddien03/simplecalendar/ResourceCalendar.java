@@ -0,0 +1,229 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * String name;
+ * int capacity;                                   -> how many bookings can run at once (seats, chairs, ...)
+ * CapacityIndex running;                          -> how many bookings run at each moment
+ * NavigableMap<Long, List<ZonedEvent>> bookings;  -> every booking by its start, in nanos since the epoch
+ *
+ * A shared resource, e.g. a room with 3 seats. Unlike AppointmentManager, bookings are
+ * allowed to overlap as long as no more than capacity of them run at the same moment.
+ * Both checking a booking and finding the next slot with room left go through the
+ * CapacityIndex, so they stay O(log n) however many bookings there are.
+ *
+ * A capacity of 1 behaves like AppointmentManager: no overlaps at all, and the plain
+ * slot search keeps the same one minute gaps
+ *
+ */
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+public class ResourceCalendar {
+
+    //Instance Variables & Constructor
+
+    private final String name;
+    private final int capacity;
+    private final ZoneId zone;
+    private final CapacityIndex running;
+    private final NavigableMap<Long, List<ZonedEvent>> bookings;
+
+    //Longest booking so far, how far back a day listing has to look for bookings still running
+    private long longestBooking;
+
+    public ResourceCalendar(String name, int capacity) {
+        this(name, capacity, ZoneId.systemDefault());
+    }
+
+    public ResourceCalendar(String name, int capacity, ZoneId zone) {
+
+        //Error handling
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("A resource must have room for at least one booking");
+        }
+
+        this.name = name;
+        this.capacity = capacity;
+        this.zone = zone;
+        this.running = new CapacityIndex();
+        this.bookings = new TreeMap<>();
+    }
+
+    //Public API
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /*
+     * Book the resource, times are in the calendar's zone
+     */
+    public synchronized void book(String title, LocalDateTime start, LocalDateTime end) {
+        book(title, start.atZone(zone), end.atZone(zone));
+    }
+
+    /*
+     * Book the resource. Fails if at some moment of [start, end) it is already full.
+     */
+    public synchronized void book(String title, ZonedDateTime start, ZonedDateTime end) {
+
+        //Error handling
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("The starting time must be before the ending time.");
+        }
+
+        long from = toNanos(start.toInstant());
+        long to = toNanos(end.toInstant());
+
+        if (running.maxOver(from, to) >= capacity) {
+            throw new IllegalArgumentException(name + " is fully booked at some point between " + start + " and " + end);
+        }
+
+        running.addInterval(from, to, 1);
+        bookings.computeIfAbsent(from, key -> new ArrayList<>()).add(new ZonedEvent(title, start, end));
+        longestBooking = Math.max(longestBooking, to - from);
+    }
+
+    /*
+     * Is there room for one more booking over all of [start, end)
+     */
+    public synchronized boolean hasRoom(ZonedDateTime start, ZonedDateTime end) {
+        return running.maxOver(toNanos(start.toInstant()), toNanos(end.toInstant())) < capacity;
+    }
+
+    /*
+     * How many bookings are running at this moment
+     */
+    public synchronized int bookedAt(ZonedDateTime time) {
+        return running.countAt(toNanos(time.toInstant()));
+    }
+
+    /*
+     * The most bookings running at once over [start, end)
+     */
+    public synchronized int peakBooked(ZonedDateTime start, ZonedDateTime end) {
+        return running.maxOver(toNanos(start.toInstant()), toNanos(end.toInstant()));
+    }
+
+    /*
+     * Every booking running at some point of the day in the calendar's zone, by start time
+     */
+    public synchronized List<ZonedEvent> listADaysBookings(LocalDate aDay) {
+
+        long dayStart = toNanos(aDay.atStartOfDay(zone).toInstant());
+        long dayEnd = toNanos(aDay.plusDays(1).atStartOfDay(zone).toInstant());
+
+        List<ZonedEvent> result = new ArrayList<>();
+
+        //Anything starting more than longestBooking before the day is over before it begins
+        for (List<ZonedEvent> sameStart : bookings.subMap(dayStart - longestBooking, true, dayEnd, false).values()) {
+            for (ZonedEvent booking : sameStart) {
+                if (toNanos(booking.getEnd().toInstant()) > dayStart) {
+                    result.add(booking);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /*
+     * Next slot of the given size on the day (from now if it is today) with room for one more booking,
+     * keeping the same one minute gap as AppointmentManager
+     */
+    public synchronized Optional<LocalTime[]> findNextAvailableSlot(LocalDate aDay, Duration howLong) {
+
+        Optional<ZonedDateTime[]> slot = findNextAvailableSlot(aDay, zone, howLong, SlotConstraints.DEFAULT);
+        if (slot.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new LocalTime[]{slot.get()[0].toLocalTime(), slot.get()[1].toLocalTime()});
+    }
+
+    /*
+     * Same as AppointmentManager's slot search, but a slot only needs one free place
+     * instead of no bookings at all. Buffers are kept by checking the slot widened by them.
+     */
+    public synchronized Optional<ZonedDateTime[]> findNextAvailableSlot(LocalDate aDay, ZoneId viewZone, Duration howLong, SlotConstraints constraints) {
+
+        //Closed day
+        if (constraints.windowStart(aDay) < 0) {
+            return Optional.empty();
+        }
+
+        long length = howLong.toNanos();
+        long before = constraints.bufferBefore();
+        long after = constraints.bufferAfter();
+
+        //Nanos since the epoch, origin is the start of the day in viewZone
+        long origin = toNanos(aDay.atStartOfDay(viewZone).toInstant());
+        long windowStart = toNanos(aDay.atTime(LocalTime.ofNanoOfDay(constraints.windowStart(aDay))).atZone(viewZone).toInstant());
+        long windowEnd = toNanos(aDay.atTime(LocalTime.ofNanoOfDay(constraints.windowEnd(aDay))).atZone(viewZone).toInstant());
+
+        //Today we can't go back in time
+        long candidate = windowStart;
+        if (aDay.isEqual(LocalDate.now(viewZone))) {
+            candidate = Math.max(candidate, toNanos(Instant.now()));
+        }
+        candidate = origin + constraints.align(candidate - origin);
+
+        /*
+        * The index finds the first widened slot [candidate - before, candidate + length + after)
+        * that never reaches capacity. If its start doesn't line up with the granularity,
+        * round it up and ask again from there.
+        */
+
+        while (candidate + length <= windowEnd) {
+
+            long found = running.findSlot(candidate - before, windowEnd + after, before + length + after, capacity);
+            if (found == CapacityIndex.NONE) {
+                return Optional.empty();
+            }
+
+            long start = found + before;
+            long aligned = origin + constraints.align(start - origin);
+
+            if (aligned == start) {
+                return Optional.of(new ZonedDateTime[]{toInstant(start).atZone(viewZone),
+                                                       toInstant(start + length).atZone(viewZone)});
+            }
+
+            candidate = aligned;
+        }
+
+        return Optional.empty();
+    }
+
+    //Helper Functions
+
+    private static long toNanos(Instant instant) {
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Time is out of range for a resource calendar: " + instant);
+        }
+    }
+
+    private static Instant toInstant(long nanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+    }
+
+}
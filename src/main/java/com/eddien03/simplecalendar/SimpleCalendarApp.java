@@ -19,6 +19,9 @@ package com.eddien03.simplecalendar;
  *
  */
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -28,11 +31,27 @@ import java.util.Scanner;
 public class SimpleCalendarApp {
 
     private static final String CSV_FILE = "events.csv";
+    private static final String STORE_DIRECTORY = "events";
+    private static final int MAX_RESIDENT_EVENTS = 50_000;
+    private static final Duration CHECKPOINT_INTERVAL = Duration.ofSeconds(5);
+    private static final int CHECKPOINT_CHANGE_THRESHOLD = 25;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
 
-        AppointmentManager manager = new AppointmentManager();
-        manager.loadFromCSV(CSV_FILE);
+        //Only the month index is read here, the months themselves load when a day is asked for
+        PartitionedEventStore store = new PartitionedEventStore(Paths.get(STORE_DIRECTORY));
+        AppointmentManager manager = new AppointmentManager(store, MAX_RESIDENT_EVENTS);
+
+        //One time move from the old single file layout into the monthly partitions
+        if (store.isEmpty() && new File(CSV_FILE).exists()) {
+            manager.loadFromCSV(CSV_FILE);
+            manager.saveToStore();
+        }
+
+        //Save in the background from now on, and once more if the app gets killed
+        CheckpointScheduler checkpoints = new CheckpointScheduler(manager, CHECKPOINT_INTERVAL, CHECKPOINT_CHANGE_THRESHOLD);
+        checkpoints.start();
+        checkpoints.installShutdownHook();
 
         Scanner scanner = new Scanner(System.in);
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
@@ -77,7 +96,8 @@ public class SimpleCalendarApp {
             }
         }
 
-        manager.saveToCSV(CSV_FILE);
+        //Most of the work was already done by the checkpoints, this only writes what is left
+        checkpoints.close();
         System.out.println("Events saved. Goodbye!");
         scanner.close();
         
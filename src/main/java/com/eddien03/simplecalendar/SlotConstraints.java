@@ -0,0 +1,191 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * Working hours  -> one [start, end] window per weekday, a missing weekday means the whole day
+ * Buffers        -> free time needed before and after the new event
+ * Granularity    -> starts must land on a multiple of this from midnight (15 minutes = quarter hours)
+ *
+ * Everything is kept as nanos of the day so findNextAvailableSlot can apply it
+ * inside its one pass over the day's events instead of filtering afterwards
+ *
+ * Constraints are immutable, every with* call and and() hands back a new one
+ *
+ */
+
+import java.time.*;
+import java.util.*;
+
+public class SlotConstraints {
+
+    private static final long END_OF_DAY = LocalTime.MAX.toNanoOfDay();
+    private static final long CLOSED = -1;
+
+    //No working hours, no alignment, and the same one minute gap the slot search always used
+    public static final SlotConstraints DEFAULT = new SlotConstraints(new EnumMap<>(DayOfWeek.class),
+                                                                       Duration.ofMinutes(1).toNanos(),
+                                                                       Duration.ofMinutes(1).toNanos(),
+                                                                       1);
+
+    //No gaps at all, events may touch exactly like addEvent allows
+    public static final SlotConstraints NONE = new SlotConstraints(new EnumMap<>(DayOfWeek.class), 0, 0, 1);
+
+    //Instance Variables & Constructor
+
+    private final EnumMap<DayOfWeek, long[]> workingHours;
+    private final long bufferBefore;
+    private final long bufferAfter;
+    private final long granularity;
+
+    private SlotConstraints(EnumMap<DayOfWeek, long[]> workingHours, long bufferBefore, long bufferAfter, long granularity) {
+        this.workingHours = workingHours;
+        this.bufferBefore = bufferBefore;
+        this.bufferAfter = bufferAfter;
+        this.granularity = granularity;
+    }
+
+    //Building Constraints
+
+    /*
+     * Only allow slots between open and close on the given weekday
+     */
+    public SlotConstraints withWorkingHours(DayOfWeek day, LocalTime open, LocalTime close) {
+
+        //Error handling
+        if (!open.isBefore(close)) {
+            throw new IllegalArgumentException("Opening time must be before closing time");
+        }
+
+        EnumMap<DayOfWeek, long[]> hours = new EnumMap<>(workingHours);
+        hours.put(day, new long[]{open.toNanoOfDay(), close.toNanoOfDay()});
+        return new SlotConstraints(hours, bufferBefore, bufferAfter, granularity);
+    }
+
+    /*
+     * Same working hours on every weekday from Monday to Friday
+     */
+    public SlotConstraints withWeekdayHours(LocalTime open, LocalTime close) {
+
+        SlotConstraints result = this;
+        for (DayOfWeek day : EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)) {
+            result = result.withWorkingHours(day, open, close);
+        }
+        return result;
+    }
+
+    /*
+     * No slots at all on the given weekday
+     */
+    public SlotConstraints withDayOff(DayOfWeek day) {
+        EnumMap<DayOfWeek, long[]> hours = new EnumMap<>(workingHours);
+        hours.put(day, new long[]{CLOSED, CLOSED});
+        return new SlotConstraints(hours, bufferBefore, bufferAfter, granularity);
+    }
+
+    /*
+     * Free time needed between the new event and the ones either side of it
+     */
+    public SlotConstraints withBuffers(Duration before, Duration after) {
+
+        //Error handling
+        if (before.isNegative() || after.isNegative()) {
+            throw new IllegalArgumentException("Buffers can't be negative");
+        }
+
+        return new SlotConstraints(workingHours, before.toNanos(), after.toNanos(), granularity);
+    }
+
+    /*
+     * Slots can only start on a multiple of this, counted from midnight
+     */
+    public SlotConstraints withGranularity(Duration step) {
+
+        //Error handling
+        if (step.isNegative() || step.isZero() || step.toNanos() > END_OF_DAY) {
+            throw new IllegalArgumentException("Granularity must be positive and shorter than a day");
+        }
+
+        return new SlotConstraints(workingHours, bufferBefore, bufferAfter, step.toNanos());
+    }
+
+    /*
+     * Combine two sets of constraints, a slot has to satisfy both of them:
+     * working hours are intersected, the bigger buffers win and starts must line up with both steps
+     */
+    public SlotConstraints and(SlotConstraints other) {
+
+        EnumMap<DayOfWeek, long[]> hours = new EnumMap<>(DayOfWeek.class);
+
+        for (DayOfWeek day : DayOfWeek.values()) {
+
+            long[] mine = workingHours.get(day);
+            long[] theirs = other.workingHours.get(day);
+
+            if (mine == null) {
+                if (theirs != null) hours.put(day, theirs);
+            } else if (theirs == null) {
+                hours.put(day, mine);
+            } else {
+                long open = Math.max(mine[0], theirs[0]);
+                long close = Math.min(mine[1], theirs[1]);
+                //Either side being closed, or no overlap at all, closes the day
+                boolean closed = mine[0] == CLOSED || theirs[0] == CLOSED || open >= close;
+                hours.put(day, closed ? new long[]{CLOSED, CLOSED} : new long[]{open, close});
+            }
+        }
+
+        return new SlotConstraints(hours,
+                                   Math.max(bufferBefore, other.bufferBefore),
+                                   Math.max(bufferAfter, other.bufferAfter),
+                                   lcm(granularity, other.granularity));
+    }
+
+    //Used by the slot search, all in nanos of the day
+
+    /*
+     * Earliest time a slot can start on this day, or -1 if the day is closed
+     */
+    long windowStart(LocalDate day) {
+        long[] hours = workingHours.get(day.getDayOfWeek());
+        return hours == null ? 0 : hours[0];
+    }
+
+    /*
+     * Latest time a slot can end on this day
+     */
+    long windowEnd(LocalDate day) {
+        long[] hours = workingHours.get(day.getDayOfWeek());
+        return hours == null ? END_OF_DAY : hours[1];
+    }
+
+    long bufferBefore() {
+        return bufferBefore;
+    }
+
+    long bufferAfter() {
+        return bufferAfter;
+    }
+
+    /*
+     * Round up to the next allowed start time
+     */
+    long align(long nanoOfDay) {
+        long remainder = nanoOfDay % granularity;
+        return remainder == 0 ? nanoOfDay : nanoOfDay + (granularity - remainder);
+    }
+
+    //Helper Functions
+
+    private static long lcm(long a, long b) {
+        long x = a;
+        long y = b;
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+
+}
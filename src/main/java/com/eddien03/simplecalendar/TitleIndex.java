@@ -0,0 +1,181 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * Key = a lower case word out of a title ("Dentist - Dr. Smith" -> dentist, dr, smith)
+ * Value = every posting (UTC day, start, end, title) with that word, sorted by day and then time
+ *
+ * Words are kept in a sorted map so a prefix ("dent") is just a range of keys,
+ * and each posting set is sorted so a date range is just a subSet.
+ * Both are concurrent so a whole calendar can be indexed from a parallel stream.
+ *
+ * A posting is just the numbers and an interned title, never the Event itself, so the
+ * index doesn't keep events alive after their month is evicted
+ *
+ */
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+public class TitleIndex {
+
+    private static final Event LOWEST_EVENT = new Event("", LocalTime.MIDNIGHT, LocalTime.MIDNIGHT);
+
+    //Instance Variable & Constructor
+
+    private final ConcurrentSkipListMap<String, ConcurrentSkipListSet<Posting>> postings;
+
+    public TitleIndex() {
+        this.postings = new ConcurrentSkipListMap<>();
+    }
+
+    //Building the Index
+
+    /*
+     * Index a single event, this is what addEvent calls
+     */
+    public void add(LocalDate day, Event event) {
+        add(new Posting(day, event));
+    }
+
+    /*
+     * Index a whole batch at once, split up over all cores
+     */
+    public void addAll(Collection<Posting> batch) {
+        batch.parallelStream().forEach(this::add);
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    //Searching
+
+    /*
+     * Every posting between the two days (both included) whose title has a word starting
+     * with each word of the query. Comes back sorted by day and time.
+     *
+     * Only the postings of the longest query word are walked, the rest are checked
+     * against the title, so the cost follows the number of matches and not the calendar size.
+     */
+    public NavigableSet<Posting> search(String query, LocalDate fromDay, LocalDate toDay) {
+
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || toDay.isBefore(fromDay)) {
+            return Collections.emptyNavigableSet();
+        }
+
+        //The longest word is usually the rarest one
+        String driver = Collections.max(words, Comparator.comparingInt(String::length));
+
+        Posting low = new Posting(fromDay, LOWEST_EVENT);
+        Posting high = new Posting(toDay.plusDays(1), LOWEST_EVENT);
+
+        //All the words that start with the driver live next to each other in the map
+        NavigableMap<String, ConcurrentSkipListSet<Posting>> matchingWords = postings.subMap(driver, true, driver + Character.MAX_VALUE, false);
+
+        //One word and nothing else to check, just hand out the view
+        if (words.size() == 1 && matchingWords.size() == 1) {
+            return matchingWords.firstEntry().getValue().subSet(low, true, high, false);
+        }
+
+        NavigableSet<Posting> result = new TreeSet<>();
+
+        for (ConcurrentSkipListSet<Posting> set : matchingWords.values()) {
+            for (Posting posting : set.subSet(low, true, high, false)) {
+                if (matchesAll(posting.title, words)) {
+                    result.add(posting);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    //Helper Functions
+
+    private void add(Posting posting) {
+        for (String word : tokenize(posting.title)) {
+            postings.computeIfAbsent(word, w -> new ConcurrentSkipListSet<>()).add(posting);
+        }
+    }
+
+    /*
+     * Split a title into lower case words, anything that isn't a letter or digit separates them
+     */
+    static List<String> tokenize(String text) {
+
+        List<String> words = new ArrayList<>();
+
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+
+        return words;
+    }
+
+    private static boolean matchesAll(String title, List<String> queryWords) {
+
+        List<String> titleWords = tokenize(title);
+
+        for (String queryWord : queryWords) {
+            boolean found = false;
+            for (String titleWord : titleWords) {
+                if (titleWord.startsWith(queryWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+
+        return true;
+    }
+
+    //Inner Class
+
+    /*
+     * Where a match lives: the UTC day and the piece of the event stored on it.
+     * Kept as plain numbers, getEvent builds a fresh Event when one is asked for.
+     */
+    public static class Posting implements Comparable<Posting> {
+        final long epochDay;
+        final long startNanos;
+        final long endNanos;
+        final String title;
+
+        Posting(LocalDate day, Event event) {
+            this.epochDay = day.toEpochDay();
+            this.startNanos = event.getStartTime().toNanoOfDay();
+            this.endNanos = event.getEndTime().toNanoOfDay();
+            //Every posting of a title shares one String, however many times its month is loaded
+            this.title = event.getTitle().intern();
+        }
+
+        public LocalDate getDay() {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+
+        public Event getEvent() {
+            return new Event(title, LocalTime.ofNanoOfDay(startNanos), LocalTime.ofNanoOfDay(endNanos));
+        }
+
+        //Day first, then the same order as the day's TreeSet, then the title so two empty events can't collide
+        @Override
+        public int compareTo(Posting other) {
+            int cmp = Long.compare(this.epochDay, other.epochDay);
+            if (cmp != 0) return cmp;
+            cmp = Long.compare(this.startNanos, other.startNanos);
+            if (cmp != 0) return cmp;
+            cmp = Long.compare(this.endNanos, other.endNanos);
+            return (cmp != 0) ? cmp : this.title.compareTo(other.title);
+        }
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * String title;
+ * ZonedDateTime start;
+ * ZonedDateTime end;
+ *
+ * This is what an Event looks like once it leaves the manager in someone's time zone.
+ * Unlike Event it keeps the offset, so times around a DST change still read correctly
+ *
+ */
+
+import java.time.ZonedDateTime;
+
+public class ZonedEvent implements Comparable<ZonedEvent> {
+
+    private final String title;
+    private final ZonedDateTime start;
+    private final ZonedDateTime end;
+
+    //Constructor
+    public ZonedEvent(String title, ZonedDateTime start, ZonedDateTime end) {
+
+        //Error handling
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("The starting time must be before the ending time.");
+        }
+
+        this.title = title;
+        this.start = start;
+        this.end = end;
+    }
+
+    //Getters
+    public String getTitle() {
+        return title;
+    }
+
+    public ZonedDateTime getStart() {
+        return start;
+    }
+
+    public ZonedDateTime getEnd() {
+        return end;
+    }
+
+    //Ordered by the instant, same tie break on the end as Event
+    @Override
+    public int compareTo(ZonedEvent other) {
+        int cmp = this.start.toInstant().compareTo(other.start.toInstant());
+        return (cmp != 0) ? cmp : this.end.toInstant().compareTo(other.end.toInstant());
+    }
+
+}
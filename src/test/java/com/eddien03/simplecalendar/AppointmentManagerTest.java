@@ -2,11 +2,22 @@ package com.eddien03.simplecalendar;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.NavigableSet;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -107,4 +118,369 @@ public class AppointmentManagerTest {
         });
     }
     
+    @Test
+    void testStoreOnlyLoadsRequestedMonths(@TempDir Path dir) throws IOException {
+        AppointmentManager writer = new AppointmentManager(new PartitionedEventStore(dir), 100, ZoneOffset.UTC);
+        writer.addEvent("January", LocalDateTime.of(2025, 1, 10, 9, 0), LocalDateTime.of(2025, 1, 10, 10, 0));
+        writer.addEvent("March", LocalDateTime.of(2025, 3, 10, 9, 0), LocalDateTime.of(2025, 3, 10, 10, 0));
+        writer.saveToStore();
+
+        PartitionedEventStore store = new PartitionedEventStore(dir);
+        assertTrue(store.hasPartition(YearMonth.of(2025, 1)));
+        assertTrue(store.hasPartition(YearMonth.of(2025, 3)));
+        assertFalse(store.hasPartition(YearMonth.of(2025, 2)));
+
+        AppointmentManager reader = new AppointmentManager(store, 100, ZoneOffset.UTC);
+        NavigableSet<Event> events = reader.listADaysEvents(LocalDate.of(2025, 3, 10));
+        assertEquals(1, events.size());
+        assertEquals("March", events.first().getTitle());
+    }
+
+    @Test
+    void testEvictedMonthsAreWrittenBackAndReloaded(@TempDir Path dir) throws IOException {
+        // A budget of one event forces every other month out as soon as a new one is touched
+        AppointmentManager small = new AppointmentManager(new PartitionedEventStore(dir), 1);
+        small.addEvent("Overnight", LocalDateTime.of(2025, 1, 31, 22, 0), LocalDateTime.of(2025, 2, 1, 2, 0));
+        small.addEvent("April", LocalDateTime.of(2025, 4, 1, 9, 0), LocalDateTime.of(2025, 4, 1, 10, 0));
+
+        assertEquals(1, small.listADaysEvents(LocalDate.of(2025, 1, 31)).size());
+        assertEquals(1, small.listADaysEvents(LocalDate.of(2025, 2, 1)).size());
+        assertEquals(1, small.listADaysEvents(LocalDate.of(2025, 4, 1)).size());
+
+        // Overlaps are still caught against a month that had been evicted
+        assertThrows(IllegalArgumentException.class, () ->
+            small.addEvent("Clash", LocalDateTime.of(2025, 1, 31, 23, 0), LocalDateTime.of(2025, 1, 31, 23, 30)));
+    }
+
+    @Test
+    void testCsvExportIncludesMonthsNotInMemory(@TempDir Path dir) throws IOException {
+        Path storeDir = dir.resolve("store");
+        AppointmentManager small = new AppointmentManager(new PartitionedEventStore(storeDir), 1, ZoneOffset.UTC);
+        small.addEvent("January", LocalDateTime.of(2025, 1, 10, 9, 0), LocalDateTime.of(2025, 1, 10, 10, 0));
+        small.addEvent("March", LocalDateTime.of(2025, 3, 10, 9, 0), LocalDateTime.of(2025, 3, 10, 10, 0));
+
+        // January has been evicted by now
+        Path csv = dir.resolve("export.csv");
+        small.saveToCSV(csv.toString());
+        assertEquals(List.of("January,2025-01-10T09:00:00Z,2025-01-10T10:00:00Z",
+                             "March,2025-03-10T09:00:00Z,2025-03-10T10:00:00Z"), Files.readAllLines(csv));
+
+        // A fresh manager that never loaded a month still exports all of them
+        small.saveToStore();
+        AppointmentManager fresh = new AppointmentManager(new PartitionedEventStore(storeDir), 100, ZoneOffset.UTC);
+        fresh.saveToCSV(csv.toString());
+        assertEquals(2, Files.readAllLines(csv).size());
+    }
+
+    @Test
+    void testSaveOnlyRewritesDirtyMonths(@TempDir Path dir) throws IOException {
+        AppointmentManager writer = new AppointmentManager(new PartitionedEventStore(dir), 100, ZoneOffset.UTC);
+        writer.addEvent("January", LocalDateTime.of(2025, 1, 10, 9, 0), LocalDateTime.of(2025, 1, 10, 10, 0));
+        writer.addEvent("March", LocalDateTime.of(2025, 3, 10, 9, 0), LocalDateTime.of(2025, 3, 10, 10, 0));
+        assertTrue(writer.hasUnsavedChanges());
+        writer.saveToStore();
+        assertFalse(writer.hasUnsavedChanges());
+
+        // Swap January's file behind the manager's back, a clean month must not be written again
+        Path january = dir.resolve("2025-01.csv");
+        String marker = "Marker,2025-01-20T09:00:00,2025-01-20T10:00:00" + System.lineSeparator();
+        Files.writeString(january, marker);
+
+        writer.addEvent("March 2", LocalDateTime.of(2025, 3, 11, 9, 0), LocalDateTime.of(2025, 3, 11, 10, 0));
+        writer.saveToStore();
+
+        assertEquals(marker, Files.readString(january));
+        assertEquals(2, new PartitionedEventStore(dir).partitionSize(YearMonth.of(2025, 3)));
+        assertFalse(Files.exists(dir.resolve("2025-03.csv.tmp")));
+    }
+
+    @Test
+    void testCheckpointWritesTheIndexOnce(@TempDir Path dir) throws IOException {
+        int[] indexWrites = new int[1];
+        PartitionedEventStore counting = new PartitionedEventStore(dir) {
+            @Override
+            synchronized void writeIndex() throws IOException {
+                indexWrites[0]++;
+                super.writeIndex();
+            }
+        };
+
+        AppointmentManager writer = new AppointmentManager(counting, 100, ZoneOffset.UTC);
+        for (int month = 1; month <= 3; month++) {
+            writer.addEvent("Monthly", LocalDateTime.of(2025, month, 10, 9, 0), LocalDateTime.of(2025, month, 10, 10, 0));
+        }
+        writer.saveToStore();
+
+        assertEquals(1, indexWrites[0]);
+        assertEquals(3, new PartitionedEventStore(dir).listPartitions().size());
+    }
+
+    @Test
+    void testFindNextAvailableSlotWithConstraints() {
+        // 2025-12-31 is a Wednesday
+        LocalDate day = LocalDate.of(2025, 12, 31);
+        manager.addEvent("Standup", LocalDateTime.of(2025, 12, 31, 9, 0), LocalDateTime.of(2025, 12, 31, 9, 20));
+        manager.addEvent("Review", LocalDateTime.of(2025, 12, 31, 10, 0), LocalDateTime.of(2025, 12, 31, 11, 0));
+
+        SlotConstraints constraints = SlotConstraints.NONE
+            .withWeekdayHours(LocalTime.of(9, 0), LocalTime.of(17, 0))
+            .withBuffers(Duration.ofMinutes(10), Duration.ofMinutes(10))
+            .withGranularity(Duration.ofMinutes(15));
+
+        // 9:30 is the first quarter hour 10 minutes after Standup, but 9:30-10:00 leaves no buffer before Review
+        LocalTime[] slot = manager.findNextAvailableSlot(day, Duration.ofMinutes(30), constraints).orElseThrow();
+        assertEquals(LocalTime.of(11, 15), slot[0]);
+        assertEquals(LocalTime.of(11, 45), slot[1]);
+
+        // A shorter slot fits the gap between the two
+        slot = manager.findNextAvailableSlot(day, Duration.ofMinutes(15), constraints).orElseThrow();
+        assertEquals(LocalTime.of(9, 30), slot[0]);
+
+        // Longer than what is left of the working day
+        assertTrue(manager.findNextAvailableSlot(day, Duration.ofHours(6), constraints).isEmpty());
+
+        // Combining with a day off closes Wednesdays entirely
+        SlotConstraints noWednesdays = constraints.and(SlotConstraints.NONE.withDayOff(DayOfWeek.WEDNESDAY));
+        assertTrue(manager.findNextAvailableSlot(day, Duration.ofMinutes(15), noWednesdays).isEmpty());
+    }
+
+    @Test
+    void testFindNextAvailableSlotAfterLastEvent() {
+        manager.addEvent("Early", LocalDateTime.of(2025, 12, 31, 0, 0), LocalDateTime.of(2025, 12, 31, 1, 0));
+
+        LocalTime[] slot = manager.findNextAvailableSlot(LocalDate.of(2025, 12, 31), Duration.ofMinutes(30)).orElseThrow();
+        assertEquals(LocalTime.of(1, 1), slot[0]);
+        assertEquals(LocalTime.of(1, 31), slot[1]);
+    }
+
+    @Test
+    void testListingsInOtherTimeZones() {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
+        AppointmentManager shared = new AppointmentManager(ZoneOffset.UTC);
+
+        // 20:00-23:00 in New York is 00:00-03:00 UTC the next day and 09:00-12:00 in Tokyo
+        shared.addEvent("Call", ZonedDateTime.of(2025, 6, 2, 20, 0, 0, 0, newYork), ZonedDateTime.of(2025, 6, 2, 23, 0, 0, 0, newYork));
+
+        List<ZonedEvent> inNewYork = shared.listADaysEvents(LocalDate.of(2025, 6, 2), newYork);
+        assertEquals(1, inNewYork.size());
+        assertEquals(LocalTime.of(20, 0), inNewYork.get(0).getStart().toLocalTime());
+
+        List<ZonedEvent> inTokyo = shared.listADaysEvents(LocalDate.of(2025, 6, 3), tokyo);
+        assertEquals(1, inTokyo.size());
+        assertEquals(LocalTime.of(9, 0), inTokyo.get(0).getStart().toLocalTime());
+        assertEquals(LocalTime.of(12, 0), inTokyo.get(0).getEnd().toLocalTime());
+
+        assertEquals(LocalTime.of(0, 0), shared.listADaysEvents(LocalDate.of(2025, 6, 3)).first().getStartTime());
+        assertTrue(shared.listADaysEvents(LocalDate.of(2025, 6, 2), tokyo).isEmpty());
+    }
+
+    @Test
+    void testEventSplitAtUtcMidnightIsJoinedInOtherZones() {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        AppointmentManager shared = new AppointmentManager(newYork);
+
+        // 18:00-22:00 in New York crosses midnight UTC, but is one event on the New York day
+        shared.addEvent("Evening", LocalDateTime.of(2025, 6, 2, 18, 0), LocalDateTime.of(2025, 6, 2, 22, 0));
+
+        NavigableSet<Event> events = shared.listADaysEvents(LocalDate.of(2025, 6, 2));
+        assertEquals(1, events.size());
+        assertEquals(LocalTime.of(18, 0), events.first().getStartTime());
+        assertEquals(LocalTime.of(22, 0), events.first().getEndTime());
+    }
+
+    @Test
+    void testBuffersReachIntoNeighbouringDays() {
+        AppointmentManager utc = new AppointmentManager(ZoneOffset.UTC);
+        utc.addEvent("Late", LocalDateTime.of(2025, 6, 1, 23, 0), LocalDateTime.of(2025, 6, 1, 23, 55));
+
+        // 30 minutes after Late ends is already the next day
+        SlotConstraints after = SlotConstraints.NONE.withBuffers(Duration.ofMinutes(30), Duration.ZERO);
+        LocalTime[] slot = utc.findNextAvailableSlot(LocalDate.of(2025, 6, 2), Duration.ofMinutes(10), after).orElseThrow();
+        assertEquals(LocalTime.of(0, 25), slot[0]);
+
+        // And the buffer before an event early the next day cuts the end of this one short
+        utc.addEvent("All Day", LocalDateTime.of(2025, 6, 2, 0, 0), LocalDateTime.of(2025, 6, 2, 23, 30));
+        utc.addEvent("Early", LocalDateTime.of(2025, 6, 3, 0, 10), LocalDateTime.of(2025, 6, 3, 1, 0));
+        SlotConstraints before = SlotConstraints.NONE.withBuffers(Duration.ZERO, Duration.ofMinutes(20));
+        assertTrue(utc.findNextAvailableSlot(LocalDate.of(2025, 6, 2), Duration.ofMinutes(25), before).isEmpty());
+        SlotConstraints shorter = SlotConstraints.NONE.withBuffers(Duration.ZERO, Duration.ofMinutes(15));
+        assertEquals(LocalTime.of(23, 30), utc.findNextAvailableSlot(LocalDate.of(2025, 6, 2), Duration.ofMinutes(25), shorter).orElseThrow()[0]);
+    }
+
+    @Test
+    void testBackToBackEventsWithSameTitleStayApart() {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        AppointmentManager shared = new AppointmentManager(newYork);
+
+        shared.addEvent("Meeting", LocalDateTime.of(2025, 6, 2, 9, 0), LocalDateTime.of(2025, 6, 2, 10, 0));
+        shared.addEvent("Meeting", LocalDateTime.of(2025, 6, 2, 10, 0), LocalDateTime.of(2025, 6, 2, 11, 0));
+        // These two touch right at midnight UTC but neither is a piece of the other
+        shared.addEvent("Meeting", LocalDateTime.of(2025, 6, 2, 19, 0), LocalDateTime.of(2025, 6, 2, 20, 0));
+        shared.addEvent("Meeting", LocalDateTime.of(2025, 6, 2, 20, 0), LocalDateTime.of(2025, 6, 2, 21, 0));
+
+        NavigableSet<Event> events = shared.listADaysEvents(LocalDate.of(2025, 6, 2));
+        assertEquals(4, events.size());
+        assertEquals(LocalTime.of(10, 0), events.first().getEndTime());
+        assertEquals(4, shared.listADaysEvents(LocalDate.of(2025, 6, 2), newYork).size());
+    }
+
+    @Test
+    void testSlotSearchAcrossDaylightSavingChange() {
+        // Clocks in New York jump from 02:00 to 03:00 on 2025-03-09, so the day only has 23 hours
+        ZoneId newYork = ZoneId.of("America/New_York");
+        AppointmentManager shared = new AppointmentManager(newYork);
+        LocalDate day = LocalDate.of(2025, 3, 9);
+
+        // 01:30 to 03:30 local is only one real hour
+        shared.addEvent("Night Shift", LocalDateTime.of(2025, 3, 9, 1, 30), LocalDateTime.of(2025, 3, 9, 3, 30));
+        shared.addEvent("Breakfast", LocalDateTime.of(2025, 3, 9, 8, 0), LocalDateTime.of(2025, 3, 9, 9, 0));
+
+        SlotConstraints quarterHours = SlotConstraints.NONE.withGranularity(Duration.ofMinutes(15))
+                                                           .withWorkingHours(DayOfWeek.SUNDAY, LocalTime.of(3, 0), LocalTime.of(12, 0));
+
+        ZonedDateTime[] slot = shared.findNextAvailableSlot(day, newYork, Duration.ofHours(4), quarterHours).orElseThrow();
+        assertEquals(LocalTime.of(3, 30), slot[0].toLocalTime());
+        assertEquals(LocalTime.of(7, 30), slot[1].toLocalTime());
+
+        // Midnight to 04:00 on the clock is only three real hours that day
+        SlotConstraints earlyMorning = SlotConstraints.NONE.withWorkingHours(DayOfWeek.SUNDAY, LocalTime.MIDNIGHT, LocalTime.of(4, 0));
+        AppointmentManager empty = new AppointmentManager(newYork);
+        assertTrue(empty.findNextAvailableSlot(day, Duration.ofMinutes(210), earlyMorning).isEmpty());
+        assertEquals(LocalTime.of(4, 0), empty.findNextAvailableSlot(day, Duration.ofHours(3), earlyMorning).orElseThrow()[1]);
+    }
+
+    @Test
+    void testFilesAreWrittenInUtcAndOldFilesReadInManagerZone(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("events.csv");
+        Files.writeString(csv, "Legacy,2025-06-02T09:00,2025-06-02T10:00" + System.lineSeparator());
+
+        AppointmentManager newYork = new AppointmentManager(ZoneId.of("America/New_York"));
+        newYork.loadFromCSV(csv.toString());
+        assertEquals(LocalTime.of(9, 0), newYork.listADaysEvents(LocalDate.of(2025, 6, 2)).first().getStartTime());
+
+        newYork.saveToCSV(csv.toString());
+        assertEquals("Legacy,2025-06-02T13:00:00Z,2025-06-02T14:00:00Z", Files.readString(csv).trim());
+
+        // Once written with a Z the file means the same thing in every zone
+        AppointmentManager tokyo = new AppointmentManager(ZoneId.of("Asia/Tokyo"));
+        tokyo.loadFromCSV(csv.toString());
+        assertEquals(LocalTime.of(22, 0), tokyo.listADaysEvents(LocalDate.of(2025, 6, 2)).first().getStartTime());
+    }
+
+    @Test
+    void testSearchByTitle() {
+        AppointmentManager utc = new AppointmentManager(ZoneOffset.UTC);
+        for (int day = 1; day <= 5; day++) {
+            utc.addEvent("Dentist - Dr. Smith", LocalDateTime.of(2025, 5, day, 9, 0), LocalDateTime.of(2025, 5, day, 10, 0));
+            utc.addEvent("Team Lunch", LocalDateTime.of(2025, 5, day, 12, 0), LocalDateTime.of(2025, 5, day, 13, 0));
+        }
+        utc.addEvent("Dental Surgery", LocalDateTime.of(2025, 5, 3, 22, 0), LocalDateTime.of(2025, 5, 4, 2, 0));
+
+        // Whole words, prefixes and several words at once
+        assertEquals(5, utc.searchByTitle("dentist", LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31), 0, 100).size());
+        assertEquals(6, utc.searchByTitle("DENT", LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31), 0, 100).size());
+        assertEquals(5, utc.searchByTitle("dent smith", LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31), 0, 100).size());
+        assertTrue(utc.searchByTitle("dinner", LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31), 0, 100).isEmpty());
+
+        // The date range is respected and the surgery comes back as one event, not two days
+        List<ZonedEvent> surgery = utc.searchByTitle("surgery", LocalDate.of(2025, 5, 3), LocalDate.of(2025, 5, 4), 0, 100);
+        assertEquals(1, surgery.size());
+        assertEquals(LocalDateTime.of(2025, 5, 3, 22, 0), surgery.get(0).getStart().toLocalDateTime());
+        assertEquals(LocalDateTime.of(2025, 5, 4, 2, 0), surgery.get(0).getEnd().toLocalDateTime());
+
+        // Cut down to the range on either side, the same as listEventsBetween
+        List<ZonedEvent> secondDay = utc.searchByTitle("surgery", LocalDate.of(2025, 5, 4), LocalDate.of(2025, 5, 4), 0, 100);
+        assertEquals(LocalDateTime.of(2025, 5, 4, 0, 0), secondDay.get(0).getStart().toLocalDateTime());
+        assertEquals(LocalDateTime.of(2025, 5, 4, 2, 0), secondDay.get(0).getEnd().toLocalDateTime());
+        List<ZonedEvent> firstDay = utc.searchByTitle("surgery", LocalDate.of(2025, 5, 3), LocalDate.of(2025, 5, 3), 0, 100);
+        assertEquals(LocalDateTime.of(2025, 5, 3, 22, 0), firstDay.get(0).getStart().toLocalDateTime());
+        assertEquals(LocalDateTime.of(2025, 5, 4, 0, 0), firstDay.get(0).getEnd().toLocalDateTime());
+        // May 3 in London ends at 23:00 UTC, part way through the surgery
+        ZoneId london = ZoneId.of("Europe/London");
+        List<ZonedEvent> inLondon = utc.searchByTitle("surgery", LocalDate.of(2025, 5, 3), LocalDate.of(2025, 5, 3), london, 0, 100);
+        assertEquals(ZonedDateTime.of(2025, 5, 3, 23, 0, 0, 0, london), inLondon.get(0).getStart());
+        assertEquals(ZonedDateTime.of(2025, 5, 4, 0, 0, 0, 0, london), inLondon.get(0).getEnd());
+
+        // Paging walks the matches in time order
+        List<ZonedEvent> firstPage = utc.searchByTitle("lunch", LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31), 0, 2);
+        List<ZonedEvent> lastPage = utc.searchByTitle("lunch", LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 31), 4, 2);
+        assertEquals(2, firstPage.size());
+        assertEquals(1, firstPage.get(0).getStart().getDayOfMonth());
+        assertEquals(1, lastPage.size());
+        assertEquals(5, lastPage.get(0).getStart().getDayOfMonth());
+    }
+
+    @Test
+    void testSearchKeepsBackToBackMatchesApart() {
+        AppointmentManager newYork = new AppointmentManager(ZoneId.of("America/New_York"));
+        newYork.addEvent("Meeting", LocalDateTime.of(2025, 6, 2, 9, 0), LocalDateTime.of(2025, 6, 2, 10, 0));
+        newYork.addEvent("Meeting", LocalDateTime.of(2025, 6, 2, 10, 0), LocalDateTime.of(2025, 6, 2, 11, 0));
+
+        List<ZonedEvent> found = newYork.searchByTitle("meeting", LocalDate.of(2025, 6, 2), LocalDate.of(2025, 6, 2), 0, 10);
+        assertEquals(2, found.size());
+        assertEquals(LocalTime.of(10, 0), found.get(0).getEnd().toLocalTime());
+
+        // Paging counts them separately too
+        List<ZonedEvent> second = newYork.searchByTitle("meeting", LocalDate.of(2025, 6, 2), LocalDate.of(2025, 6, 2), 1, 1);
+        assertEquals(1, second.size());
+        assertEquals(LocalTime.of(10, 0), second.get(0).getStart().toLocalTime());
+    }
+
+    @Test
+    void testTitleIndexDoesNotKeepEvictedEventsAlive(@TempDir Path dir) throws IOException, InterruptedException {
+        AppointmentManager small = new AppointmentManager(new PartitionedEventStore(dir), 1, ZoneOffset.UTC);
+        small.addEvent("Dentist", LocalDateTime.of(2025, 1, 10, 9, 0), LocalDateTime.of(2025, 1, 10, 10, 0));
+        WeakReference<Event> january = new WeakReference<>(small.listADaysEvents(LocalDate.of(2025, 1, 10)).first());
+
+        // Touching March pushes January out of memory
+        small.addEvent("Dentist", LocalDateTime.of(2025, 3, 10, 9, 0), LocalDateTime.of(2025, 3, 10, 10, 0));
+
+        for (int i = 0; i < 20 && january.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(january.get());
+
+        // The index still finds both
+        List<ZonedEvent> found = small.searchByTitle("dentist", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), 0, 10);
+        assertEquals(2, found.size());
+        assertEquals(LocalDateTime.of(2025, 1, 10, 9, 0), found.get(0).getStart().toLocalDateTime());
+    }
+
+    @Test
+    void testTitleIndexCoversLoadedAndStoredEvents(@TempDir Path dir) throws IOException {
+        Path csv = dir.resolve("events.csv");
+        Files.writeString(csv, "Dentist,2025-02-10T09:00Z,2025-02-10T10:00Z" + System.lineSeparator()
+                             + "Dentist,2025-04-10T09:00Z,2025-04-10T10:00Z" + System.lineSeparator());
+
+        Path storeDir = dir.resolve("store");
+        AppointmentManager writer = new AppointmentManager(new PartitionedEventStore(storeDir), 100, ZoneOffset.UTC);
+        writer.loadFromCSV(csv.toString());
+        assertEquals(2, writer.searchByTitle("dentist", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), 0, 10).size());
+        writer.saveToStore();
+
+        // A fresh manager finds them without ever loading those months
+        AppointmentManager reader = new AppointmentManager(new PartitionedEventStore(storeDir), 100, ZoneOffset.UTC);
+        assertEquals(2, reader.searchByTitle("dentist", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), 0, 10).size());
+    }
+
+    @Test
+    void testFreshStoreManagerSearchesEveryMonth(@TempDir Path dir) throws IOException {
+        AppointmentManager writer = new AppointmentManager(new PartitionedEventStore(dir), 100, ZoneOffset.UTC);
+        for (int month = 1; month <= 11; month += 2) {
+            writer.addEvent("Dentist", LocalDateTime.of(2025, month, 10, 9, 0), LocalDateTime.of(2025, month, 10, 10, 0));
+        }
+        writer.saveToStore();
+
+        // Only March is ever touched, the other five months stay on disk
+        AppointmentManager reader = new AppointmentManager(new PartitionedEventStore(dir), 100, ZoneOffset.UTC);
+        assertEquals(1, reader.listADaysEvents(LocalDate.of(2025, 3, 10)).size());
+        assertEquals(6, reader.searchByTitle("dentist", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), 0, 10).size());
+
+        // And new events show up from then on
+        reader.addEvent("Dentist", LocalDateTime.of(2025, 12, 10, 9, 0), LocalDateTime.of(2025, 12, 10, 10, 0));
+        assertEquals(7, reader.searchByTitle("dentist", LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), 0, 10).size());
+    }
+
 }
@@ -0,0 +1,211 @@
+package com.eddien03.simplecalendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Unit Tests for the occupancy reports
+ */
+
+public class CalendarAnalyticsTest {
+
+    private AppointmentManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new AppointmentManager(ZoneOffset.UTC);
+
+        // Every day of June 2025 has a 09:00-11:00 block, Fridays also have 14:30-15:30
+        for (int day = 1; day <= 30; day++) {
+            LocalDate date = LocalDate.of(2025, 6, day);
+            manager.addEvent("Block", date.atTime(9, 0), date.atTime(11, 0));
+            if (date.getDayOfWeek().getValue() == 5) {
+                manager.addEvent("Friday", date.atTime(14, 30), date.atTime(15, 30));
+            }
+        }
+        // Crosses into July
+        manager.addEvent("Overnight", LocalDateTime.of(2025, 6, 30, 22, 0), LocalDateTime.of(2025, 7, 1, 2, 0));
+    }
+
+    @Test
+    void testDailyReport() {
+        OccupancyReport friday = new CalendarAnalytics(manager).forDay(LocalDate.of(2025, 6, 6));
+
+        assertEquals(Duration.ofHours(3), friday.getBusy());
+        assertEquals(Duration.ofHours(21), friday.getFree());
+        assertEquals(0.125, friday.getUtilization(), 1e-9);
+        assertEquals(2, friday.getEventCount());
+        assertEquals(Duration.ofMinutes(30), friday.getBusyInHour(14));
+        assertEquals(Duration.ofMinutes(30), friday.getBusyInHour(15));
+    }
+
+    @Test
+    void testWeeklyAndMonthlyReports() {
+        CalendarAnalytics analytics = new CalendarAnalytics(manager);
+
+        // 2025-06-01 is a Sunday, so the first week is a single day
+        List<OccupancyReport> weeks = analytics.byWeek(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30));
+        assertEquals(6, weeks.size());
+        assertEquals(LocalDate.of(2025, 6, 1), weeks.get(0).getTo());
+        assertEquals(LocalDate.of(2025, 6, 2), weeks.get(1).getFrom());
+        assertEquals(LocalDate.of(2025, 6, 8), weeks.get(1).getTo());
+        assertEquals(Duration.ofHours(15), weeks.get(1).getBusy());
+
+        List<OccupancyReport> months = analytics.byMonth(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 7, 31));
+        assertEquals(2, months.size());
+        // 30 blocks, 4 Fridays and the first two hours of the overnight event
+        assertEquals(Duration.ofHours(60 + 4 + 2), months.get(0).getBusy());
+        assertEquals(Duration.ofHours(2), months.get(1).getBusy());
+        assertEquals(9, months.get(0).getPeakHour());
+        assertEquals(LocalDate.of(2025, 6, 30), months.get(0).getPeakDay());
+        assertNull(analytics.forDay(LocalDate.of(2025, 8, 1)).getPeakDay());
+    }
+
+    @Test
+    void testRollupsMatchReadingEvents() {
+        CalendarAnalytics analytics = new CalendarAnalytics(manager);
+        OccupancyReport before = analytics.total(LocalDate.of(2025, 5, 1), LocalDate.of(2025, 7, 31));
+
+        manager.enableRollups();
+        OccupancyReport rolledUp = analytics.total(LocalDate.of(2025, 5, 1), LocalDate.of(2025, 7, 31));
+        assertEquals(before.getBusy(), rolledUp.getBusy());
+        assertEquals(before.getEventCount(), rolledUp.getEventCount());
+
+        // addEvent keeps them current
+        manager.addEvent("Late", LocalDateTime.of(2025, 7, 15, 20, 0), LocalDateTime.of(2025, 7, 15, 21, 0));
+        assertEquals(before.getBusy().plusHours(1), analytics.total(LocalDate.of(2025, 5, 1), LocalDate.of(2025, 7, 31)).getBusy());
+    }
+
+    @Test
+    void testReportsOverEvictedMonths(@TempDir Path dir) throws IOException {
+        // A tiny budget keeps most months on disk only, the reports must still see them
+        AppointmentManager stored = new AppointmentManager(new PartitionedEventStore(dir), 5, ZoneOffset.UTC);
+        for (int month = 1; month <= 12; month++) {
+            stored.addEvent("Monthly", LocalDateTime.of(2025, month, 10, 9, 0), LocalDateTime.of(2025, month, 10, 10, 0));
+        }
+
+        OccupancyReport year = new CalendarAnalytics(stored).total(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+        assertEquals(Duration.ofHours(12), year.getBusy());
+
+        stored.enableRollups();
+        assertEquals(Duration.ofHours(12), new CalendarAnalytics(stored).total(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)).getBusy());
+    }
+
+    @Test
+    void testReportsFollowTheManagersZone() {
+        AppointmentManager newYork = new AppointmentManager(ZoneId.of("America/New_York"));
+
+        // 20:00-22:00 in New York is 00:00-02:00 UTC the next day
+        newYork.addEvent("Evening", LocalDateTime.of(2025, 6, 2, 20, 0), LocalDateTime.of(2025, 6, 2, 22, 0));
+        // 18:00-22:00 is split at midnight UTC but is still one event on the New York day
+        newYork.addEvent("Dinner", LocalDateTime.of(2025, 6, 3, 18, 0), LocalDateTime.of(2025, 6, 3, 22, 0));
+
+        CalendarAnalytics analytics = new CalendarAnalytics(newYork);
+        OccupancyReport june2 = analytics.forDay(LocalDate.of(2025, 6, 2));
+        assertEquals(Duration.ofHours(2), june2.getBusy());
+        assertEquals(1, june2.getEventCount());
+        assertEquals(Duration.ofHours(1), june2.getBusyInHour(20));
+
+        OccupancyReport june3 = analytics.forDay(LocalDate.of(2025, 6, 3));
+        assertEquals(Duration.ofHours(4), june3.getBusy());
+        assertEquals(1, june3.getEventCount());
+        assertEquals(18, june3.getPeakHour());
+
+        // Two nights in a row and a DST change, both days the clocks change are in the range
+        newYork.addEvent("Trip", LocalDateTime.of(2025, 3, 8, 19, 0), LocalDateTime.of(2025, 3, 10, 7, 0));
+        newYork.addEvent("Night", LocalDateTime.of(2025, 11, 2, 0, 0), LocalDateTime.of(2025, 11, 2, 3, 0));
+        newYork.addEvent("Midnight", LocalDateTime.of(2025, 6, 9, 20, 0), LocalDateTime.of(2025, 6, 10, 0, 0));
+        List<OccupancyReport> scanned = analytics.byDay(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+
+        // Rollups are per UTC day, the New York days built from their hours must come out the same
+        newYork.enableRollups();
+        assertSameReports(scanned, analytics.byDay(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)));
+        assertEquals(Duration.ofHours(2), analytics.forDay(LocalDate.of(2025, 6, 2)).getBusy());
+        assertEquals(1, analytics.forDay(LocalDate.of(2025, 3, 9)).getEventCount());
+
+        // Read in UTC, June 3 holds all of Evening and the first two hours of Dinner
+        assertEquals(Duration.ofHours(4), new CalendarAnalytics(newYork, ZoneOffset.UTC).forDay(LocalDate.of(2025, 6, 3)).getBusy());
+    }
+
+    @Test
+    void testRollupsServeOtherZones(@TempDir Path dir) throws IOException {
+        ZoneId newYork = ZoneId.of("America/New_York");
+        AppointmentManager stored = new AppointmentManager(new PartitionedEventStore(dir), 1, newYork);
+        for (int month = 1; month <= 12; month++) {
+            stored.addEvent("Monthly", LocalDateTime.of(2025, month, 10, 21, 0), LocalDateTime.of(2025, month, 10, 22, 0));
+        }
+        stored.enableRollups();
+        stored.saveToStore();
+
+        // With the month files gone only the rollups can still know about the events
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                if (!file.getFileName().toString().startsWith("index")) Files.delete(file);
+            }
+        }
+
+        OccupancyReport year = new CalendarAnalytics(stored).total(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31));
+        assertEquals(Duration.ofHours(12), year.getBusy());
+        assertEquals(12, year.getEventCount());
+        assertEquals(Duration.ofHours(12), year.getBusyInHour(21));
+    }
+
+    @Test
+    void testHalfHourZonesMatchWithRollups() {
+        AppointmentManager kolkata = new AppointmentManager(ZoneId.of("Asia/Kolkata"));
+        kolkata.addEvent("Standup", LocalDateTime.of(2025, 6, 2, 5, 0), LocalDateTime.of(2025, 6, 2, 6, 0));
+        kolkata.addEvent("Overnight", LocalDateTime.of(2025, 6, 2, 22, 0), LocalDateTime.of(2025, 6, 3, 7, 0));
+
+        CalendarAnalytics analytics = new CalendarAnalytics(kolkata);
+        List<OccupancyReport> scanned = analytics.byDay(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 4));
+
+        // Their days don't start on a UTC hour, so these fall back to reading the events
+        kolkata.enableRollups();
+        assertSameReports(scanned, analytics.byDay(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 4)));
+        assertEquals(Duration.ofHours(1), analytics.forDay(LocalDate.of(2025, 6, 2)).getBusyInHour(5));
+        assertEquals(2, analytics.forDay(LocalDate.of(2025, 6, 2)).getEventCount());
+    }
+
+    @Test
+    void testDaylightSavingDayHasItsRealLength() {
+        AppointmentManager newYork = new AppointmentManager(ZoneId.of("America/New_York"));
+
+        // Clocks go back on 2025-11-02, so the day has 25 hours and 01:00-02:00 happens twice
+        newYork.addEvent("Night", LocalDateTime.of(2025, 11, 2, 0, 0), LocalDateTime.of(2025, 11, 2, 3, 0));
+
+        OccupancyReport day = new CalendarAnalytics(newYork).forDay(LocalDate.of(2025, 11, 2));
+        assertEquals(Duration.ofHours(4), day.getBusy());
+        assertEquals(Duration.ofHours(21), day.getFree());
+        assertEquals(Duration.ofHours(2), day.getBusyInHour(1));
+    }
+
+    private static void assertSameReports(List<OccupancyReport> expected, List<OccupancyReport> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            OccupancyReport want = expected.get(i);
+            OccupancyReport got = actual.get(i);
+            String day = want.getFrom().toString();
+            assertEquals(want.getBusy(), got.getBusy(), day);
+            assertEquals(want.getFree(), got.getFree(), day);
+            assertEquals(want.getEventCount(), got.getEventCount(), day);
+            assertEquals(want.getPeakDay(), got.getPeakDay(), day);
+            for (int hour = 0; hour < 24; hour++) {
+                assertEquals(want.getBusyInHour(hour), got.getBusyInHour(hour), day + " " + hour);
+            }
+        }
+    }
+
+}
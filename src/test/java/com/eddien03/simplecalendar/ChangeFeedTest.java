@@ -0,0 +1,165 @@
+package com.eddien03.simplecalendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Unit Tests for publishing changes and following them on a second manager
+ */
+
+public class ChangeFeedTest {
+
+    private AppointmentManager leader;
+    private AppointmentManager replica;
+
+    @BeforeEach
+    void setUp() {
+        leader = new AppointmentManager(ZoneOffset.UTC);
+        replica = new AppointmentManager(ZoneOffset.UTC);
+    }
+
+    @Test
+    void testFollowerStaysInSync() throws InterruptedException {
+        ChangeFeed feed = leader.openChangeFeed(1000);
+        ChangeFollower follower = new ChangeFollower(replica, feed.getLatestSequence(), 8);
+        follower.follow(feed);
+
+        for (int i = 0; i < 50; i++) {
+            LocalDateTime start = LocalDateTime.of(2025, 9, 1 + i % 28, i % 20, 0);
+            leader.addEvent("Event " + i, start, start.plusMinutes(30));
+        }
+        leader.addEvent("Overnight", LocalDateTime.of(2025, 9, 29, 22, 0), LocalDateTime.of(2025, 9, 30, 2, 0));
+
+        // A rejected event never reaches the feed
+        assertThrows(IllegalArgumentException.class, () ->
+            leader.addEvent("Clash", LocalDateTime.of(2025, 9, 29, 23, 0), LocalDateTime.of(2025, 9, 29, 23, 30)));
+
+        assertTrue(follower.awaitSequence(leader.getVersion(), Duration.ofSeconds(5)));
+        assertNull(follower.getFailure());
+        for (int day = 1; day <= 30; day++) {
+            LocalDate date = LocalDate.of(2025, 9, day);
+            assertEquals(leader.listADaysEvents(date).size(), replica.listADaysEvents(date).size());
+        }
+        assertEquals(leader.getVersion(), replica.getVersion());
+    }
+
+    @Test
+    void testSubscriberOnlyGetsWhatItRequested() throws InterruptedException {
+        ChangeFeed feed = leader.openChangeFeed(100);
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+        CountDownLatch firstTwo = new CountDownLatch(2);
+        CountDownLatch third = new CountDownLatch(3);
+        Flow.Subscription[] subscription = new Flow.Subscription[1];
+
+        feed.subscribe(new Flow.Subscriber<>() {
+            public void onSubscribe(Flow.Subscription s) {
+                subscription[0] = s;
+                s.request(2);
+            }
+            public void onNext(ChangeEvent change) {
+                received.add(change);
+                firstTwo.countDown();
+                third.countDown();
+            }
+            public void onError(Throwable error) {
+            }
+            public void onComplete() {
+            }
+        });
+
+        for (int hour = 0; hour < 5; hour++) {
+            leader.addEvent("Hour " + hour, LocalDateTime.of(2025, 9, 1, hour, 0), LocalDateTime.of(2025, 9, 1, hour, 30));
+        }
+
+        assertTrue(firstTwo.await(5, TimeUnit.SECONDS));
+        // Nothing past what was asked for turns up, however long it's given
+        assertFalse(third.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(2, received.size());
+        assertEquals(1, received.get(0).getSequence());
+        assertEquals(2, received.get(1).getSequence());
+
+        subscription[0].request(10);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() < 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(5, received.size());
+        assertEquals(5, received.get(4).getSequence());
+    }
+
+    @Test
+    void testFollowerResumesFromLastSequence() throws InterruptedException {
+        ChangeFeed feed = leader.openChangeFeed(100);
+        ChangeFollower follower = new ChangeFollower(replica, 0, 4);
+        follower.follow(feed);
+
+        leader.addEvent("Before", LocalDateTime.of(2025, 9, 1, 9, 0), LocalDateTime.of(2025, 9, 1, 10, 0));
+        assertTrue(follower.awaitSequence(1, Duration.ofSeconds(5)));
+        follower.stop();
+
+        leader.addEvent("While Away 1", LocalDateTime.of(2025, 9, 2, 9, 0), LocalDateTime.of(2025, 9, 2, 10, 0));
+        leader.addEvent("While Away 2", LocalDateTime.of(2025, 9, 3, 9, 0), LocalDateTime.of(2025, 9, 3, 10, 0));
+
+        follower.follow(feed);
+        assertTrue(follower.awaitSequence(3, Duration.ofSeconds(5)));
+        assertEquals(1, replica.listADaysEvents(LocalDate.of(2025, 9, 3)).size());
+    }
+
+    @Test
+    void testSameChangeFromTwoSubscriptionsIsAppliedOnce() throws InterruptedException {
+        ChangeFollower follower = new ChangeFollower(replica, 0, 4);
+        ChangeEvent change = new ChangeEvent(1, "Twice", Instant.parse("2025-09-01T09:00:00Z"), Instant.parse("2025-09-01T10:00:00Z"));
+
+        // Like an old subscription still draining after stop() racing the new one from follow().
+        // Holding the replica's lock until both are stuck lines them up on the same change.
+        Thread[] deliveries = new Thread[2];
+        synchronized (replica) {
+            for (int i = 0; i < deliveries.length; i++) {
+                deliveries[i] = new Thread(() -> follower.onNext(change));
+                deliveries[i].start();
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((deliveries[0].getState() != Thread.State.BLOCKED || deliveries[1].getState() != Thread.State.BLOCKED)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(1);
+            }
+        }
+        for (Thread delivery : deliveries) {
+            delivery.join();
+        }
+
+        assertNull(follower.getFailure());
+        assertEquals(1, follower.getLastSequence());
+        assertEquals(1, replica.listADaysEvents(LocalDate.of(2025, 9, 1)).size());
+        assertEquals(1, replica.getVersion());
+    }
+
+    @Test
+    void testFollowerTooFarBehindIsTold() throws InterruptedException {
+        ChangeFeed feed = leader.openChangeFeed(2);
+        for (int hour = 0; hour < 5; hour++) {
+            leader.addEvent("Hour " + hour, LocalDateTime.of(2025, 9, 1, hour, 0), LocalDateTime.of(2025, 9, 1, hour, 30));
+        }
+
+        // Only changes 4 and 5 are still held, starting after 0 can't work
+        ChangeFollower follower = new ChangeFollower(replica, 0, 4);
+        follower.follow(feed);
+
+        assertFalse(follower.awaitSequence(5, Duration.ofSeconds(5)));
+        assertInstanceOf(IllegalStateException.class, follower.getFailure());
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.eddien03.simplecalendar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Unit Tests for writing checkpoints in the background
+ */
+
+public class CheckpointSchedulerTest {
+
+    @Test
+    void testChangeThresholdTriggersCheckpoint(@TempDir Path dir) throws Exception {
+        AppointmentManager manager = new AppointmentManager(new PartitionedEventStore(dir), 1000, ZoneOffset.UTC);
+
+        try (CheckpointScheduler checkpoints = new CheckpointScheduler(manager, Duration.ofHours(1), 3, Duration.ofMillis(10))) {
+            checkpoints.start();
+
+            for (int i = 0; i < 3; i++) {
+                LocalDateTime start = LocalDateTime.of(2025, 6, 1 + i, 9, 0);
+                manager.addEvent("Event " + i, start, start.plusHours(1));
+            }
+
+            // The interval is an hour away so only the change count can cause this
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.hasUnsavedChanges() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertFalse(manager.hasUnsavedChanges());
+            assertEquals(3, new PartitionedEventStore(dir).partitionSize(YearMonth.of(2025, 6)));
+        }
+    }
+
+    @Test
+    void testCloseFlushesRemainingChanges(@TempDir Path dir) throws Exception {
+        AppointmentManager manager = new AppointmentManager(new PartitionedEventStore(dir), 1000, ZoneOffset.UTC);
+        CheckpointScheduler checkpoints = new CheckpointScheduler(manager, Duration.ofHours(1), 1000);
+        checkpoints.start();
+
+        manager.addEvent("Last Minute", LocalDateTime.of(2025, 7, 4, 20, 0), LocalDateTime.of(2025, 7, 4, 21, 0));
+        checkpoints.close();
+
+        assertFalse(manager.hasUnsavedChanges());
+        AppointmentManager reloaded = new AppointmentManager(new PartitionedEventStore(dir), 1000, ZoneOffset.UTC);
+        assertEquals(1, reloaded.listADaysEvents(LocalDate.of(2025, 7, 4)).size());
+    }
+
+    @Test
+    void testSubMillisecondPollInterval(@TempDir Path dir) throws Exception {
+        AppointmentManager manager = new AppointmentManager(new PartitionedEventStore(dir), 1000, ZoneOffset.UTC);
+        try (CheckpointScheduler checkpoints = new CheckpointScheduler(manager, Duration.ofHours(1), 1, Duration.ofNanos(500))) {
+            checkpoints.start();
+            manager.addEvent("Quick", LocalDateTime.of(2025, 8, 1, 9, 0), LocalDateTime.of(2025, 8, 1, 10, 0));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (manager.hasUnsavedChanges() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertFalse(manager.hasUnsavedChanges());
+        }
+    }
+
+    @Test
+    void testInMemoryManagerCantBeCheckpointed() {
+        AppointmentManager manager = new AppointmentManager(ZoneOffset.UTC);
+        manager.addEvent("Nowhere To Go", LocalDateTime.of(2025, 7, 4, 20, 0), LocalDateTime.of(2025, 7, 4, 21, 0));
+
+        assertThrows(IllegalStateException.class, manager::saveToStore);
+        assertThrows(IllegalStateException.class, () -> new CheckpointScheduler(manager, Duration.ofHours(1), 1000));
+
+        // Nothing was saved, so it still says so
+        assertTrue(manager.hasUnsavedChanges());
+    }
+
+    @Test
+    void testEventsAddedDuringCheckpointsAreNotLost(@TempDir Path dir) throws Exception {
+        AppointmentManager manager = new AppointmentManager(new PartitionedEventStore(dir), 1000, ZoneOffset.UTC);
+
+        try (CheckpointScheduler checkpoints = new CheckpointScheduler(manager, Duration.ofMillis(1), 1, Duration.ofMillis(1))) {
+            checkpoints.start();
+
+            // Every event lands in the same month so each checkpoint rewrites it while we keep adding
+            for (int i = 0; i < 200; i++) {
+                LocalDateTime start = LocalDateTime.of(2025, 8, 1 + i % 30, i / 30, 0);
+                manager.addEvent("Event " + i, start, start.plusMinutes(30));
+            }
+        }
+
+        AppointmentManager reloaded = new AppointmentManager(new PartitionedEventStore(dir), 1000, ZoneOffset.UTC);
+        int total = 0;
+        for (int day = 1; day <= 31; day++) {
+            total += reloaded.listADaysEvents(LocalDate.of(2025, 8, day)).size();
+        }
+        assertEquals(200, total);
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.eddien03.simplecalendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Unit Tests for shared resources with room for more than one booking at a time
+ */
+
+public class ResourceCalendarTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 3, 4);
+
+    private ResourceCalendar room;
+
+    @BeforeEach
+    void setUp() {
+        room = new ResourceCalendar("Room A", 3, ZoneOffset.UTC);
+    }
+
+    @Test
+    void testOverlapsAllowedUpToCapacity() {
+        room.book("Standup", DAY.atTime(9, 0), DAY.atTime(10, 0));
+        room.book("Review", DAY.atTime(9, 30), DAY.atTime(11, 0));
+        room.book("Interview", DAY.atTime(9, 45), DAY.atTime(10, 15));
+
+        // 9:45 - 10:00 already has 3
+        assertThrows(IllegalArgumentException.class, () ->
+            room.book("One Too Many", DAY.atTime(8, 0), DAY.atTime(9, 50)));
+
+        // Touching the end of the busy stretch is fine, bookings are [start, end)
+        room.book("After", DAY.atTime(10, 0), DAY.atTime(10, 30));
+
+        assertEquals(3, room.bookedAt(at(9, 50)));
+        assertEquals(3, room.bookedAt(at(10, 0)));
+        assertEquals(1, room.bookedAt(at(10, 45)));
+        assertEquals(3, room.peakBooked(at(8, 0), at(12, 0)));
+        assertEquals(2, room.peakBooked(at(9, 30), at(9, 45)));
+        assertFalse(room.hasRoom(at(9, 0), at(10, 30)));
+        assertTrue(room.hasRoom(at(10, 15), at(12, 0)));
+        assertEquals(4, room.listADaysBookings(DAY).size());
+    }
+
+    @Test
+    void testCapacityOfOneAllowsNoOverlap() {
+        ResourceCalendar desk = new ResourceCalendar("Desk", 1, ZoneOffset.UTC);
+        desk.book("Morning", DAY.atTime(9, 0), DAY.atTime(12, 0));
+
+        assertThrows(IllegalArgumentException.class, () ->
+            desk.book("Clash", DAY.atTime(11, 59), DAY.atTime(13, 0)));
+        desk.book("Afternoon", DAY.atTime(12, 0), DAY.atTime(13, 0));
+        assertThrows(IllegalArgumentException.class, () -> new ResourceCalendar("Nothing", 0));
+
+        // The slot search keeps the same one minute gap as AppointmentManager
+        AppointmentManager manager = new AppointmentManager(ZoneOffset.UTC);
+        manager.addEvent("Morning", DAY.atTime(0, 0), DAY.atTime(12, 0));
+        manager.addEvent("Afternoon", DAY.atTime(12, 0), DAY.atTime(13, 0));
+        desk.book("Night", DAY.atTime(0, 0), DAY.atTime(9, 0));
+        assertEquals(LocalTime.of(13, 1), manager.findNextAvailableSlot(DAY, Duration.ofMinutes(30)).orElseThrow()[0]);
+        assertEquals(LocalTime.of(13, 1), desk.findNextAvailableSlot(DAY, Duration.ofMinutes(30)).orElseThrow()[0]);
+    }
+
+    @Test
+    void testNextSlotWithFreeCapacity() {
+        // Full from 9:00 to 10:30, then full again from 11:00 to 12:00
+        for (int i = 0; i < 3; i++) {
+            room.book("Block " + i, DAY.atTime(9, 0), DAY.atTime(10, 30 - i * 10));
+            room.book("Later " + i, DAY.atTime(11, 0), DAY.atTime(12, 0));
+        }
+        room.book("Early", DAY.atTime(0, 0), DAY.atTime(9, 0));
+
+        // A seat is free from 10:10 but only for 50 minutes
+        Optional<LocalTime[]> shortSlot = room.findNextAvailableSlot(DAY, Duration.ofMinutes(30));
+        assertTrue(shortSlot.isPresent());
+        assertEquals(LocalTime.of(0, 0), shortSlot.get()[0]);
+
+        ZonedDateTime[] hour = room.findNextAvailableSlot(DAY, ZoneOffset.UTC, Duration.ofHours(1),
+            SlotConstraints.NONE.withWorkingHours(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0))).get();
+        assertEquals(at(12, 0), hour[0]);
+
+        ZonedDateTime[] half = room.findNextAvailableSlot(DAY, ZoneOffset.UTC, Duration.ofMinutes(30),
+            SlotConstraints.NONE.withWorkingHours(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0))).get();
+        assertEquals(at(10, 10), half[0]);
+
+        // 15 minute starts and a 5 minute buffer push it to 10:15
+        ZonedDateTime[] buffered = room.findNextAvailableSlot(DAY, ZoneOffset.UTC, Duration.ofMinutes(30),
+            SlotConstraints.NONE.withWorkingHours(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0))
+                .withBuffers(Duration.ofMinutes(5), Duration.ofMinutes(5))
+                .withGranularity(Duration.ofMinutes(15))).get();
+        assertEquals(at(10, 15), buffered[0]);
+
+        // Nothing longer than 5 hours fits between 12:00 and 17:00
+        assertTrue(room.findNextAvailableSlot(DAY, ZoneOffset.UTC, Duration.ofHours(6),
+            SlotConstraints.NONE.withWorkingHours(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(17, 0))).isEmpty());
+    }
+
+    @Test
+    void testBookingsSpanningDays() {
+        room.book("Overnight", LocalDateTime.of(2030, 3, 3, 22, 0), DAY.atTime(2, 0));
+        room.book("Next Day", DAY.atTime(23, 0), LocalDateTime.of(2030, 3, 5, 1, 0));
+
+        assertEquals(2, room.listADaysBookings(DAY).size());
+        assertEquals(1, room.listADaysBookings(LocalDate.of(2030, 3, 3)).size());
+        assertEquals(1, room.bookedAt(at(1, 0)));
+    }
+
+    @Test
+    void testIndexMatchesBruteForce() {
+        Random random = new Random(7);
+        CapacityIndex index = new CapacityIndex();
+        int[] running = new int[500];
+
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(480);
+            int end = start + 1 + random.nextInt(20);
+            int count = 1 + random.nextInt(2);
+            index.addInterval(start, end, count);
+            for (int t = start; t < end; t++) {
+                running[t] += count;
+            }
+        }
+
+        for (int i = 0; i < 300; i++) {
+            int start = random.nextInt(490);
+            int end = start + 1 + random.nextInt(10);
+
+            int max = 0;
+            for (int t = start; t < end; t++) {
+                max = Math.max(max, running[t]);
+            }
+            assertEquals(running[start], index.countAt(start));
+            assertEquals(max, index.maxOver(start, end));
+
+            int limit = 1 + random.nextInt(max + 2);
+            int length = 1 + random.nextInt(5);
+            long expected = CapacityIndex.NONE;
+            for (int t = start; t + length <= 500 && expected == CapacityIndex.NONE; t++) {
+                boolean fits = true;
+                for (int u = t; u < t + length; u++) {
+                    fits &= running[u] < limit;
+                }
+                if (fits) expected = t;
+            }
+            assertEquals(expected, index.findSlot(start, 500, length, limit));
+        }
+    }
+
+    //Helper Functions
+
+    private static ZonedDateTime at(int hour, int minute) {
+        return DAY.atTime(hour, minute).atZone(ZoneOffset.UTC);
+    }
+
+}
@@ -0,0 +1,316 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * Runs one stream of WorkloadGenerator operations per thread against a single
+ * AppointmentManager for a fixed time. Generated streams never repeat and keep
+ * moving to new days, a replayed trace is moved forward every time it wraps around,
+ * so the calendar keeps growing for the whole run.
+ *
+ * Every call is timed into a per thread, per kind Histogram (no locking while running),
+ * they are merged at the end into a Report with:
+ *   throughput, p50 / p90 / p99 / max latency per kind,
+ *   how many adds were rejected, and how much the heap grew (after a GC on both ends)
+ *
+ * Run from the test classpath:
+ *   SoakTestHarness [seconds] [threads] [seed] [first day] [trace file to replay]
+ * The first day is fixed (not today) so the same seed is the same workload on any day
+ *
+ */
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public class SoakTestHarness {
+
+    private static final LocalDate DEFAULT_FIRST_DAY = LocalDate.of(2030, 1, 1);
+    private static final int DAYS_PER_PASS = 365;
+
+    public static void main(String[] args) throws Exception {
+
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        LocalDate firstDay = args.length > 3 ? LocalDate.parse(args[3]) : DEFAULT_FIRST_DAY;
+
+        List<Iterator<WorkloadGenerator.Operation>> workload = new ArrayList<>();
+
+        if (args.length > 4) {
+            for (List<WorkloadGenerator.Operation> operations : split(WorkloadGenerator.read(Path.of(args[4])), threads)) {
+                workload.add(WorkloadGenerator.replay(operations));
+            }
+        } else {
+            WorkloadGenerator generator = new WorkloadGenerator(WorkloadGenerator.Mix.DEFAULT, seed, firstDay, DAYS_PER_PASS);
+            for (int thread = 0; thread < threads; thread++) {
+                workload.add(generator.stream(thread));
+            }
+        }
+
+        System.out.println("Running " + threads + " threads for " + seconds + "s (seed " + seed + ", from " + firstDay + ")");
+        Report report = run(new AppointmentManager(ZoneOffset.UTC), workload, Duration.ofSeconds(seconds));
+        System.out.println(report);
+    }
+
+    /*
+     * Drive the manager with workload.size() threads, thread i taking operations from workload.get(i), until duration is up
+     */
+    public static Report run(AppointmentManager manager, List<Iterator<WorkloadGenerator.Operation>> workload, Duration duration) throws InterruptedException {
+
+        long heapBefore = usedHeap();
+
+        int threads = workload.size();
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Map<WorkloadGenerator.Kind, Histogram>> latencies = new ArrayList<>();
+        long[] rejected = new long[threads];
+        Thread[] workers = new Thread[threads];
+
+        for (int i = 0; i < threads; i++) {
+
+            Iterator<WorkloadGenerator.Operation> operations = workload.get(i);
+            Map<WorkloadGenerator.Kind, Histogram> histograms = newHistograms();
+            latencies.add(histograms);
+            int thread = i;
+
+            workers[i] = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                long deadline = System.nanoTime() + duration.toNanos();
+
+                while (operations.hasNext() && System.nanoTime() < deadline) {
+
+                    WorkloadGenerator.Operation operation = operations.next();
+
+                    long started = System.nanoTime();
+                    boolean accepted = operation.apply(manager);
+                    histograms.get(operation.getKind()).record(System.nanoTime() - started);
+
+                    if (!accepted) rejected[thread]++;
+                }
+            }, "soak-" + i);
+
+            workers[i].start();
+        }
+
+        ready.await();
+        long started = System.nanoTime();
+        go.countDown();
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long elapsed = System.nanoTime() - started;
+
+        //Merge everything now that the workers are done with it
+        Map<WorkloadGenerator.Kind, Histogram> merged = newHistograms();
+        for (Map<WorkloadGenerator.Kind, Histogram> histograms : latencies) {
+            histograms.forEach((kind, histogram) -> merged.get(kind).merge(histogram));
+        }
+
+        long totalRejected = 0;
+        for (long count : rejected) {
+            totalRejected += count;
+        }
+
+        return new Report(threads, Duration.ofNanos(elapsed), merged, totalRejected, usedHeap() - heapBefore);
+    }
+
+    //Helper Functions
+
+    /*
+     * Deal a single trace out to the threads round robin, a thread left without any is dropped
+     */
+    static List<List<WorkloadGenerator.Operation>> split(List<WorkloadGenerator.Operation> operations, int threads) {
+
+        List<List<WorkloadGenerator.Operation>> workload = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            workload.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < operations.size(); i++) {
+            workload.get(i % threads).add(operations.get(i));
+        }
+
+        workload.removeIf(List::isEmpty);
+        return workload;
+    }
+
+    private static Map<WorkloadGenerator.Kind, Histogram> newHistograms() {
+        Map<WorkloadGenerator.Kind, Histogram> histograms = new EnumMap<>(WorkloadGenerator.Kind.class);
+        for (WorkloadGenerator.Kind kind : WorkloadGenerator.Kind.values()) {
+            histograms.put(kind, new Histogram());
+        }
+        return histograms;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    //Inner Classes
+
+    /*
+     * Latencies in nanos, bucketed by power of two and then 16 steps within it,
+     * so any value is off by at most about 6% and recording is just an array increment
+     */
+    static class Histogram {
+
+        private static final int STEPS = 16;
+
+        private final long[] counts = new long[64 * STEPS];
+        private long total;
+        private long max;
+
+        void record(long nanos) {
+            counts[bucket(Math.max(0, nanos))]++;
+            total++;
+            max = Math.max(max, nanos);
+        }
+
+        void merge(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            max = Math.max(max, other.max);
+        }
+
+        long getCount() {
+            return total;
+        }
+
+        long getMax() {
+            return max;
+        }
+
+        /*
+         * The latency fraction of the calls finished within, e.g. 0.99 for p99
+         */
+        long percentile(double fraction) {
+
+            if (total == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+
+            return max;
+        }
+
+        private static int bucket(long nanos) {
+            if (nanos < STEPS) return (int) nanos;
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int step = (int) (nanos >>> (exponent - 4)) & (STEPS - 1);
+            return (exponent - 3) * STEPS + step;
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < STEPS) return bucket;
+            int exponent = bucket / STEPS + 3;
+            long step = bucket % STEPS;
+            return ((STEPS + step + 1) << (exponent - 4)) - 1;
+        }
+    }
+
+    public static class Report {
+
+        private final int threads;
+        private final Duration elapsed;
+        private final Map<WorkloadGenerator.Kind, Histogram> latencies;
+        private final long rejected;
+        private final long heapGrowth;
+
+        Report(int threads, Duration elapsed, Map<WorkloadGenerator.Kind, Histogram> latencies, long rejected, long heapGrowth) {
+            this.threads = threads;
+            this.elapsed = elapsed;
+            this.latencies = latencies;
+            this.rejected = rejected;
+            this.heapGrowth = heapGrowth;
+        }
+
+        public long getOperations() {
+            long operations = 0;
+            for (Histogram histogram : latencies.values()) {
+                operations += histogram.getCount();
+            }
+            return operations;
+        }
+
+        public long getOperations(WorkloadGenerator.Kind kind) {
+            return latencies.get(kind).getCount();
+        }
+
+        public double getThroughput() {
+            return getOperations() / (elapsed.toNanos() / 1e9);
+        }
+
+        /*
+         * Latency in nanos at the given fraction, e.g. 0.99 for p99
+         */
+        public long getLatency(WorkloadGenerator.Kind kind, double fraction) {
+            return latencies.get(kind).percentile(fraction);
+        }
+
+        public long getMaxLatency(WorkloadGenerator.Kind kind) {
+            return latencies.get(kind).getMax();
+        }
+
+        /*
+         * Fraction of the adds the manager rejected
+         */
+        public double getRejectionRate() {
+            long adds = getOperations(WorkloadGenerator.Kind.ADD);
+            return adds == 0 ? 0 : (double) rejected / adds;
+        }
+
+        /*
+         * Bytes of heap still in use after the run compared to before, can be negative
+         */
+        public long getHeapGrowth() {
+            return heapGrowth;
+        }
+
+        @Override
+        public String toString() {
+
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("%d operations on %d threads in %.1fs, %.0f ops/s%n",
+                getOperations(), threads, elapsed.toNanos() / 1e9, getThroughput()));
+            out.append(String.format("%-10s %10s %10s %10s %10s %10s%n", "kind", "count", "p50 us", "p90 us", "p99 us", "max us"));
+
+            for (WorkloadGenerator.Kind kind : WorkloadGenerator.Kind.values()) {
+                out.append(String.format("%-10s %10d %10.1f %10.1f %10.1f %10.1f%n", kind, getOperations(kind),
+                    getLatency(kind, 0.50) / 1e3, getLatency(kind, 0.90) / 1e3,
+                    getLatency(kind, 0.99) / 1e3, getMaxLatency(kind) / 1e3));
+            }
+
+            out.append(String.format("Rejected adds: %.1f%%%n", getRejectionRate() * 100));
+            out.append(String.format("Heap growth: %.1f MB%n", heapGrowth / (1024.0 * 1024.0)));
+            return out.toString();
+        }
+    }
+
+}
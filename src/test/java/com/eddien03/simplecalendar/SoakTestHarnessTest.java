@@ -0,0 +1,110 @@
+package com.eddien03.simplecalendar;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Unit Tests for the workload generator and a short soak run
+ */
+
+public class SoakTestHarnessTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSameSeedSameWorkload() {
+        WorkloadGenerator generator = new WorkloadGenerator(WorkloadGenerator.Mix.DEFAULT, 99, FIRST_DAY, 30);
+
+        assertEquals(generator.generate(0, 500).toString(), generator.generate(0, 500).toString());
+        assertNotEquals(generator.generate(0, 500).toString(), generator.generate(1, 500).toString());
+        assertNotEquals(generator.generate(0, 500).toString(),
+            new WorkloadGenerator(WorkloadGenerator.Mix.DEFAULT, 100, FIRST_DAY, 30).generate(0, 500).toString());
+    }
+
+    @Test
+    void testTraceRoundTrip() throws IOException {
+        WorkloadGenerator generator = new WorkloadGenerator(WorkloadGenerator.Mix.DEFAULT.withMultiDayPercent(50), 5, FIRST_DAY, 10);
+        List<WorkloadGenerator.Operation> operations = generator.generate(0, 200);
+
+        Path trace = tempDir.resolve("trace.csv");
+        WorkloadGenerator.write(operations, trace);
+
+        assertEquals(operations.toString(), WorkloadGenerator.read(trace).toString());
+        assertThrows(IllegalArgumentException.class, () -> WorkloadGenerator.Operation.parse("DELETE,2030-01-01"));
+    }
+
+    @Test
+    void testStreamsMoveToNewDays() {
+        // 10 days per pass of 100 operations
+        WorkloadGenerator generator = new WorkloadGenerator(WorkloadGenerator.Mix.DEFAULT.withMultiDayPercent(0), 3, FIRST_DAY, 10, 100);
+        List<WorkloadGenerator.Operation> operations = generator.generate(0, 300);
+
+        assertEquals(10, WorkloadGenerator.spanDays(operations.subList(0, 100)), 1);
+        assertTrue(WorkloadGenerator.spanDays(operations) >= 28);
+
+        // Replaying a trace moves it past its own span on every pass, so no add is a repeat
+        List<WorkloadGenerator.Operation> trace = operations.subList(0, 100);
+        long span = WorkloadGenerator.spanDays(trace);
+        Iterator<WorkloadGenerator.Operation> replay = WorkloadGenerator.replay(trace);
+        List<WorkloadGenerator.Operation> replayed = new ArrayList<>();
+        Set<String> adds = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            WorkloadGenerator.Operation operation = replay.next();
+            replayed.add(operation);
+            if (operation.getKind() == WorkloadGenerator.Kind.ADD) {
+                assertTrue(adds.add(operation.toString()));
+            }
+        }
+        assertEquals(trace.get(5).shiftedBy(2 * span).toString(), replayed.get(205).toString());
+    }
+
+    @Test
+    void testShortSoakRun() throws InterruptedException {
+        WorkloadGenerator generator = new WorkloadGenerator(WorkloadGenerator.Mix.DEFAULT.withConflictPercent(20), 1, FIRST_DAY, 5);
+        List<Iterator<WorkloadGenerator.Operation>> workload = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            workload.add(generator.stream(thread));
+        }
+
+        SoakTestHarness.Report report = SoakTestHarness.run(new AppointmentManager(ZoneOffset.UTC), workload, Duration.ofMillis(300));
+
+        assertTrue(report.getThroughput() > 0);
+        for (WorkloadGenerator.Kind kind : WorkloadGenerator.Kind.values()) {
+            assertTrue(report.getOperations(kind) > 0, kind.toString());
+            assertTrue(report.getLatency(kind, 0.5) <= report.getLatency(kind, 0.99));
+            assertTrue(report.getLatency(kind, 0.99) <= report.getMaxLatency(kind));
+        }
+        assertTrue(report.getRejectionRate() > 0 && report.getRejectionRate() < 1);
+        assertFalse(report.toString().isEmpty());
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        SoakTestHarness.Histogram histogram = new SoakTestHarness.Histogram();
+        for (long nanos = 1; nanos <= 10_000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+
+        // Within the ~6% a bucket can be off by
+        assertEquals(5_000_000, histogram.percentile(0.5), 5_000_000 * 0.07);
+        assertEquals(9_900_000, histogram.percentile(0.99), 9_900_000 * 0.07);
+        assertEquals(10_000_000, histogram.getMax());
+    }
+
+}
@@ -0,0 +1,417 @@
+package com.eddien03.simplecalendar;
+
+/*
+ * Structure:
+ * =========
+ * Mix mix;          -> how often each kind of operation comes up
+ * long seed;        -> same seed, same workload
+ * LocalDate firstDay;
+ * int days;         -> a pass of operations lands on `days` days starting at firstDay
+ * int passLength;   -> after this many operations of a thread the days move forward by `days`
+ *
+ * Builds the operations SoakTestHarness throws at an AppointmentManager.
+ * Each thread gets its own endless stream from a Random seeded with (seed, thread), so a run
+ * can be repeated exactly however the threads end up interleaved. Moving the days forward
+ * every pass keeps new adds landing on empty days, so the calendar keeps growing for as
+ * long as the run lasts instead of filling up and rejecting everything.
+ *
+ * Operations can also be written to / read from a trace file, one per line:
+ *   ADD,title,start,end
+ *   LIST,day
+ *   REMAINING
+ *   SLOT,day,minutes
+ * so a captured workload can be replayed instead of a generated one.
+ * replay() moves a trace forward by its own span of days every time it wraps around
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class WorkloadGenerator {
+
+    //With four threads and the default mix a pass books about half of each day
+    private static final int OPERATIONS_PER_DAY = 8;
+
+    //How many of a thread's recent adds a deliberate conflict is picked from
+    private static final int RECENT_ADDS = 64;
+
+    //Instance Variables & Constructors
+
+    private final Mix mix;
+    private final long seed;
+    private final LocalDate firstDay;
+    private final int days;
+    private final int passLength;
+
+    public WorkloadGenerator(Mix mix, long seed, LocalDate firstDay, int days) {
+        this(mix, seed, firstDay, days, days * OPERATIONS_PER_DAY);
+    }
+
+    public WorkloadGenerator(Mix mix, long seed, LocalDate firstDay, int days, int passLength) {
+
+        //Error handling
+        if (days <= 0) {
+            throw new IllegalArgumentException("The workload has to cover at least one day");
+        }
+        if (passLength <= 0) {
+            throw new IllegalArgumentException("A pass must hold at least one operation");
+        }
+
+        this.mix = mix;
+        this.seed = seed;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.passLength = passLength;
+    }
+
+    //Public API
+
+    /*
+     * An endless stream of operations for one thread, the same for the same (seed, thread)
+     */
+    public Iterator<Operation> stream(int thread) {
+        return new Stream(thread);
+    }
+
+    /*
+     * The first count operations of stream(thread), e.g. to write out as a trace
+     */
+    public List<Operation> generate(int thread, int count) {
+
+        Iterator<Operation> stream = stream(thread);
+        List<Operation> operations = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            operations.add(stream.next());
+        }
+
+        return operations;
+    }
+
+    /*
+     * Loop over a fixed list forever, moving every date forward by the list's span on each pass
+     */
+    public static Iterator<Operation> replay(List<Operation> operations) {
+
+        //Error handling
+        if (operations.isEmpty()) {
+            throw new IllegalArgumentException("There is nothing to replay");
+        }
+
+        long span = spanDays(operations);
+
+        return new Iterator<>() {
+            private int next = 0;
+            private long pass = 0;
+
+            public boolean hasNext() {
+                return true;
+            }
+
+            public Operation next() {
+                Operation operation = operations.get(next).shiftedBy(pass * span);
+                if (++next == operations.size()) {
+                    next = 0;
+                    pass++;
+                }
+                return operation;
+            }
+        };
+    }
+
+    /*
+     * Write operations to a trace file that read() can replay
+     */
+    public static void write(List<Operation> operations, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (Operation operation : operations) {
+                writer.write(operation.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    /*
+     * Read a trace file back, blank lines and lines starting with # are skipped
+     */
+    public static List<Operation> read(Path file) throws IOException {
+
+        List<Operation> operations = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !line.startsWith("#")) {
+                    operations.add(Operation.parse(line));
+                }
+            }
+        }
+
+        return operations;
+    }
+
+    //Helper Functions
+
+    /*
+     * Days from the earliest to the latest date any operation touches, both included
+     */
+    static long spanDays(List<Operation> operations) {
+
+        LocalDate earliest = null;
+        LocalDate latest = null;
+
+        for (Operation operation : operations) {
+            for (LocalDate date : operation.dates()) {
+                if (earliest == null || date.isBefore(earliest)) earliest = date;
+                if (latest == null || date.isAfter(latest)) latest = date;
+            }
+        }
+
+        return earliest == null ? 1 : ChronoUnit.DAYS.between(earliest, latest) + 1;
+    }
+
+    //Inner Classes
+
+    public enum Kind {
+        ADD, LIST, REMAINING, SLOT
+    }
+
+    /*
+     * One thread's operations. Only the last RECENT_ADDS adds are remembered for conflicts,
+     * so the generator itself doesn't grow while a long soak runs.
+     */
+    private class Stream implements Iterator<Operation> {
+
+        private final int thread;
+        private final Random random;
+        private final Operation[] recent;
+        private long recentCount;
+        private long index;
+
+        Stream(int thread) {
+            this.thread = thread;
+            this.random = new Random(seed * 31 + thread);
+            this.recent = new Operation[RECENT_ADDS];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return true;
+        }
+
+        @Override
+        public Operation next() {
+
+            long pass = index / passLength;
+            LocalDate day = firstDay.plusDays(pass * days + random.nextInt(days));
+            int pick = random.nextInt(mix.totalWeight());
+            Operation operation;
+
+            if ((pick -= mix.addWeight) < 0) {
+                operation = nextAdd(day);
+                recent[(int) (recentCount++ % RECENT_ADDS)] = operation;
+            } else if ((pick -= mix.listWeight) < 0) {
+                operation = new Operation(Kind.LIST, null, null, null, day, null);
+            } else if ((pick -= mix.remainingWeight) < 0) {
+                operation = new Operation(Kind.REMAINING, null, null, null, null, null);
+            } else {
+                Duration length = Duration.ofMinutes(15L * (1 + random.nextInt(8)));
+                operation = new Operation(Kind.SLOT, null, null, null, day, length);
+            }
+
+            index++;
+            return operation;
+        }
+
+        private Operation nextAdd(LocalDate day) {
+
+            String title = "T" + thread + "-" + index;
+
+            //Reuse the times of a recent event, sure to be rejected once that one is in
+            if (recentCount > 0 && random.nextInt(100) < mix.conflictPercent) {
+                Operation earlier = recent[random.nextInt((int) Math.min(recentCount, RECENT_ADDS))];
+                return new Operation(Kind.ADD, title, earlier.start.plusMinutes(5), earlier.end.plusMinutes(5), null, null);
+            }
+
+            //Starts on the quarter hour, between 15 minutes and 2 hours long
+            LocalDateTime start = day.atStartOfDay().plusMinutes(15L * random.nextInt(96));
+            LocalDateTime end;
+
+            if (random.nextInt(100) < mix.multiDayPercent) {
+                end = start.plusDays(1 + random.nextInt(2)).plusMinutes(15L * random.nextInt(8));
+            } else {
+                end = start.plusMinutes(15L * (1 + random.nextInt(8)));
+            }
+
+            return new Operation(Kind.ADD, title, start, end, null, null);
+        }
+    }
+
+    /*
+     * Relative weights of the four operations plus how many adds span days or clash on purpose.
+     * Immutable, the with... methods return a changed copy.
+     */
+    public static class Mix {
+
+        public static final Mix DEFAULT = new Mix(30, 40, 10, 20, 5, 10);
+
+        private final int addWeight;
+        private final int listWeight;
+        private final int remainingWeight;
+        private final int slotWeight;
+        private final int multiDayPercent;
+        private final int conflictPercent;
+
+        private Mix(int addWeight, int listWeight, int remainingWeight, int slotWeight, int multiDayPercent, int conflictPercent) {
+
+            //Error handling
+            if (addWeight < 0 || listWeight < 0 || remainingWeight < 0 || slotWeight < 0
+                    || addWeight + listWeight + remainingWeight + slotWeight == 0) {
+                throw new IllegalArgumentException("Weights can't be negative and at least one must be positive");
+            }
+            if (multiDayPercent < 0 || multiDayPercent > 100 || conflictPercent < 0 || conflictPercent > 100) {
+                throw new IllegalArgumentException("Percentages must be between 0 and 100");
+            }
+
+            this.addWeight = addWeight;
+            this.listWeight = listWeight;
+            this.remainingWeight = remainingWeight;
+            this.slotWeight = slotWeight;
+            this.multiDayPercent = multiDayPercent;
+            this.conflictPercent = conflictPercent;
+        }
+
+        public Mix withWeights(int add, int list, int remaining, int slot) {
+            return new Mix(add, list, remaining, slot, multiDayPercent, conflictPercent);
+        }
+
+        public Mix withMultiDayPercent(int percent) {
+            return new Mix(addWeight, listWeight, remainingWeight, slotWeight, percent, conflictPercent);
+        }
+
+        public Mix withConflictPercent(int percent) {
+            return new Mix(addWeight, listWeight, remainingWeight, slotWeight, multiDayPercent, percent);
+        }
+
+        int totalWeight() {
+            return addWeight + listWeight + remainingWeight + slotWeight;
+        }
+    }
+
+    /*
+     * One call against the manager. Only the fields its kind uses are set.
+     */
+    public static class Operation {
+
+        private final Kind kind;
+        private final String title;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final LocalDate day;
+        private final Duration length;
+
+        Operation(Kind kind, String title, LocalDateTime start, LocalDateTime end, LocalDate day, Duration length) {
+            this.kind = kind;
+            this.title = title;
+            this.start = start;
+            this.end = end;
+            this.day = day;
+            this.length = length;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /*
+         * Run it, false if the manager rejected it (only adds can be rejected)
+         */
+        public boolean apply(AppointmentManager manager) {
+            switch (kind) {
+                case ADD:
+                    try {
+                        manager.addEvent(title, start, end);
+                        return true;
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                case LIST:
+                    manager.listADaysEvents(day);
+                    return true;
+                case REMAINING:
+                    manager.listTodaysRemainingEvents();
+                    return true;
+                default:
+                    manager.findNextAvailableSlot(day, length);
+                    return true;
+            }
+        }
+
+        /*
+         * The same operation the given number of days later
+         */
+        Operation shiftedBy(long shiftDays) {
+            if (shiftDays == 0 || kind == Kind.REMAINING) return this;
+            return new Operation(kind, title,
+                                 start == null ? null : start.plusDays(shiftDays),
+                                 end == null ? null : end.plusDays(shiftDays),
+                                 day == null ? null : day.plusDays(shiftDays),
+                                 length);
+        }
+
+        private List<LocalDate> dates() {
+            List<LocalDate> dates = new ArrayList<>();
+            if (start != null) dates.add(start.toLocalDate());
+            if (end != null) dates.add(end.toLocalDate());
+            if (day != null) dates.add(day);
+            return dates;
+        }
+
+        static Operation parse(String line) {
+
+            String[] parts = line.split(",");
+
+            try {
+                switch (Kind.valueOf(parts[0].trim())) {
+                    case ADD:
+                        return new Operation(Kind.ADD, parts[1], LocalDateTime.parse(parts[2].trim()), LocalDateTime.parse(parts[3].trim()), null, null);
+                    case LIST:
+                        return new Operation(Kind.LIST, null, null, null, LocalDate.parse(parts[1].trim()), null);
+                    case REMAINING:
+                        return new Operation(Kind.REMAINING, null, null, null, null, null);
+                    default:
+                        return new Operation(Kind.SLOT, null, null, null, LocalDate.parse(parts[1].trim()), Duration.ofMinutes(Long.parseLong(parts[2].trim())));
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Not a workload operation: " + line, e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            switch (kind) {
+                case ADD:
+                    return "ADD," + title + "," + start + "," + end;
+                case LIST:
+                    return "LIST," + day;
+                case REMAINING:
+                    return "REMAINING";
+                default:
+                    return "SLOT," + day + "," + length.toMinutes();
+            }
+        }
+    }
+
+}